@@ -3,11 +3,15 @@ package org.ctpn.chungtayphongngua;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EntityScan("org.ctpn.chungtayphongngua.entity")
 @EnableJpaRepositories("org.ctpn.chungtayphongngua.repository")
+@EnableScheduling
+@EnableCaching
 public class ChungTayPhongNguaApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,91 @@
+package org.ctpn.chungtayphongngua.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.ctpn.chungtayphongngua.service.AssessmentService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Creates the assessment summary tables that have no entity: per-question answer
+ * counters and per-risk-level assessment counters, both maintained by upsert on
+ * each submission. Every statement is idempotent.
+ * The tables outlive schema re-creation (ddl-auto=create), so once the application
+ * is ready they are rebuilt from the assessments that actually exist.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AssessmentSchemaInitializer implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssessmentSchemaInitializer.class);
+
+    private static final String[] STATEMENTS = {
+            "CREATE TABLE IF NOT EXISTS ctpn_assessment.answer_distribution (" +
+                    "type_id INTEGER NOT NULL, " +
+                    "question_id VARCHAR(50) NOT NULL, " +
+                    "answer_value VARCHAR(255) NOT NULL, " +
+                    "answer_count BIGINT NOT NULL DEFAULT 0, " +
+                    "PRIMARY KEY (type_id, question_id, answer_value))",
+
+            "CREATE INDEX IF NOT EXISTS idx_answer_distribution_question " +
+                    "ON ctpn_assessment.answer_distribution (question_id)",
+
+            "CREATE TABLE IF NOT EXISTS ctpn_assessment.risk_level_counts (" +
+                    "type_id INTEGER NOT NULL, " +
+                    "risk_level VARCHAR(20) NOT NULL, " +
+                    "assessment_count BIGINT NOT NULL DEFAULT 0, " +
+                    "PRIMARY KEY (type_id, risk_level))"
+    };
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private AssessmentService assessmentService;
+
+    @Override
+    public void run(String... args) {
+        int failed = 0;
+
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String sql : STATEMENTS) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    failed++;
+                    logger.error("Failed to apply assessment schema statement: {}", e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to apply assessment summary tables: {}", e.getMessage());
+            return;
+        }
+
+        logger.info("Assessment summary tables applied ({} failed).", failed);
+    }
+
+    /**
+     * Runs after every CommandLineRunner (including the answer migration)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSummaries() {
+        try {
+            Map<String, Object> result = assessmentService.rebuildAnswerStatistics();
+            logger.info("Assessment summary tables rebuilt: {}", result);
+        } catch (RuntimeException e) {
+            logger.error("Failed to rebuild assessment summary tables: {}", e.getMessage());
+        }
+    }
+}
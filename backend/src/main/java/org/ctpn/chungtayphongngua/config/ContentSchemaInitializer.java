@@ -0,0 +1,100 @@
+package org.ctpn.chungtayphongngua.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Applies content-schema objects that Hibernate's ddl-auto cannot express
+ * (extensions, text search configurations, generated columns, GIN and partial
+ * indexes, tables that have no entity).
+ * Every statement is idempotent so it is safe to run on each startup.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ContentSchemaInitializer implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentSchemaInitializer.class);
+
+    private static final String[] STATEMENTS = {
+            "CREATE EXTENSION IF NOT EXISTS unaccent",
+
+            // 'simple' parser with an unaccent filter so Vietnamese diacritics match either way
+            "DO $$ BEGIN " +
+                    "IF NOT EXISTS (SELECT 1 FROM pg_ts_config c JOIN pg_namespace n ON c.cfgnamespace = n.oid " +
+                    "WHERE n.nspname = 'ctpn_content' AND c.cfgname = 'vn_unaccent') THEN " +
+                    "CREATE TEXT SEARCH CONFIGURATION ctpn_content.vn_unaccent (COPY = simple); " +
+                    "ALTER TEXT SEARCH CONFIGURATION ctpn_content.vn_unaccent " +
+                    "ALTER MAPPING FOR hword, hword_part, word WITH unaccent, simple; " +
+                    "END IF; END $$",
+
+            "ALTER TABLE ctpn_content.blog_posts ADD COLUMN IF NOT EXISTS search_vector tsvector " +
+                    "GENERATED ALWAYS AS (" +
+                    "setweight(to_tsvector('ctpn_content.vn_unaccent'::regconfig, coalesce(title, '')), 'A') || " +
+                    "setweight(to_tsvector('ctpn_content.vn_unaccent'::regconfig, coalesce(excerpt, '')), 'B') || " +
+                    "setweight(to_tsvector('ctpn_content.vn_unaccent'::regconfig, coalesce(content, '')), 'C')" +
+                    ") STORED",
+
+            "CREATE INDEX IF NOT EXISTS idx_blog_posts_search " +
+                    "ON ctpn_content.blog_posts USING gin (search_vector)",
+
+            // Comments have no JPA entity; parent_id makes them threadable
+            "CREATE TABLE IF NOT EXISTS ctpn_content.blog_comments (" +
+                    "comment_id BIGSERIAL PRIMARY KEY, " +
+                    "post_id BIGINT NOT NULL REFERENCES ctpn_content.blog_posts (post_id), " +
+                    "user_id BIGINT NOT NULL, " +
+                    "parent_id BIGINT REFERENCES ctpn_content.blog_comments (comment_id), " +
+                    "content TEXT NOT NULL, " +
+                    "status VARCHAR(20) NOT NULL DEFAULT 'pending', " +
+                    "is_deleted BOOLEAN NOT NULL DEFAULT false, " +
+                    "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)",
+
+            "ALTER TABLE ctpn_content.blog_comments ADD COLUMN IF NOT EXISTS parent_id BIGINT " +
+                    "REFERENCES ctpn_content.blog_comments (comment_id)",
+
+            "CREATE INDEX IF NOT EXISTS idx_blog_comments_roots " +
+                    "ON ctpn_content.blog_comments (post_id, created_at, comment_id) WHERE parent_id IS NULL",
+
+            "CREATE INDEX IF NOT EXISTS idx_blog_comments_parent " +
+                    "ON ctpn_content.blog_comments (parent_id, created_at)",
+
+            // Recent approved comments, read by the trending refresh
+            "CREATE INDEX IF NOT EXISTS idx_blog_comments_recent " +
+                    "ON ctpn_content.blog_comments (created_at, post_id) WHERE status = 'approved' AND is_deleted = false"
+    };
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Override
+    public void run(String... args) {
+        int failed = 0;
+
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String sql : STATEMENTS) {
+                // Keep going so one unsupported object does not block the rest
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    failed++;
+                    logger.error("Failed to apply content schema statement: {}", e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to apply content schema extensions: {}", e.getMessage());
+            return;
+        }
+
+        logger.info("Content schema extensions applied ({} failed).", failed);
+    }
+}
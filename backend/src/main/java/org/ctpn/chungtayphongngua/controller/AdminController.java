@@ -1,6 +1,7 @@
 package org.ctpn.chungtayphongngua.controller;
 
 import org.ctpn.chungtayphongngua.service.AdminService;
+import org.ctpn.chungtayphongngua.service.AssessmentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 
 import java.util.Map;
@@ -22,6 +24,9 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private AssessmentService assessmentService;
+
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
         Map<String, Object> stats = adminService.getDashboardStatistics();
@@ -47,4 +52,13 @@ public class AdminController {
         adminService.updateUserRole(userId, roleName);
         return ResponseEntity.ok(Map.of("success", true, "message", "User role updated successfully"));
     }
+
+    /**
+     * Recompute assessment answer/risk summaries from raw assessments
+     */
+    @PostMapping("/assessment-stats/rebuild")
+    public ResponseEntity<?> rebuildAssessmentStatistics() {
+        Map<String, Object> result = assessmentService.rebuildAnswerStatistics();
+        return ResponseEntity.ok(Map.of("success", true, "message", "Assessment statistics rebuilt", "data", result));
+    }
 }
@@ -1,14 +1,28 @@
 package org.ctpn.chungtayphongngua.controller;
 
 import org.ctpn.chungtayphongngua.dto.request.AssessmentRequest;
+import org.ctpn.chungtayphongngua.dto.response.AssessmentImportResultDTO;
 import org.ctpn.chungtayphongngua.dto.response.AssessmentResponse;
+import org.ctpn.chungtayphongngua.dto.response.AssessmentSubmissionStatusDTO;
+import org.ctpn.chungtayphongngua.service.AssessmentCatalog;
+import org.ctpn.chungtayphongngua.service.AssessmentImportService;
 import org.ctpn.chungtayphongngua.service.AssessmentService;
+import org.ctpn.chungtayphongngua.service.AssessmentSubmissionQueue;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,17 +38,40 @@ import java.util.Map;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class AssessmentController {
     
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    
     @Autowired
     private AssessmentService assessmentService;
     
+    @Autowired
+    private AssessmentCatalog assessmentCatalog;
+    
+    @Autowired
+    private AssessmentSubmissionQueue assessmentSubmissionQueue;
+    
+    @Autowired
+    private AssessmentImportService assessmentImportService;
+    
     /**
      * Get assessment questions based on user age
      * ASSIST for 18+, CRAFFT for <18 per Document requirements
      */
     @GetMapping("/questions")
     @PreAuthorize("hasRole('MEMBER') or hasRole('STAFF') or hasRole('CONSULTANT') or hasRole('MANAGER') or hasRole('ADMIN')")
-    public ResponseEntity<?> getAssessmentQuestions(@RequestParam("age") int age) {
+    public ResponseEntity<?> getAssessmentQuestions(@RequestParam("age") int age, WebRequest webRequest) {
         try {
+            // Served from the in-memory catalog; the database is only hit before it is loaded
+            AssessmentCatalog.Entry entry = assessmentCatalog.forAge(age);
+            if (entry != null) {
+                if (webRequest.checkNotModified(entry.etag())) {
+                    return null;
+                }
+                return ResponseEntity.ok()
+                        .eTag(entry.etag())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(entry.body());
+            }
+            
             Map<String, Object> questions = assessmentService.getAssessmentQuestions(age);
             
             Map<String, Object> response = new HashMap<>();
@@ -56,11 +93,41 @@ public class AssessmentController {
     /**
      * Submit assessment answers and get risk calculation
      * Implements automated scoring per Document FR-006
+     * With async=true the submission is queued and 202 is returned with a submission id
+     * (poll /assessment/submissions/{id}); an Idempotency-Key header dedupes retries
      */
     @PostMapping("/submit")
     @PreAuthorize("hasRole('MEMBER') or hasRole('STAFF') or hasRole('CONSULTANT') or hasRole('MANAGER') or hasRole('ADMIN')")
-    public ResponseEntity<?> submitAssessment(@Valid @RequestBody AssessmentRequest request) {
+    public ResponseEntity<?> submitAssessment(
+            @Valid @RequestBody AssessmentRequest request,
+            @RequestParam(value = "async", defaultValue = "false") boolean async,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            Authentication authentication) {
         try {
+            if (async) {
+                AssessmentSubmissionStatusDTO submission = assessmentSubmissionQueue.submit(
+                        request, authentication.getName(), idempotencyKey);
+                
+                if (submission == null) {
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("success", false);
+                    errorResponse.put("message", "Hệ thống đang bận, vui lòng thử lại sau");
+                    
+                    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                            .header(HttpHeaders.RETRY_AFTER, "10")
+                            .body(errorResponse);
+                }
+                
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("message", "Đánh giá đã được tiếp nhận và đang được xử lý");
+                response.put("data", submission);
+                
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .header(HttpHeaders.LOCATION, "/assessment/submissions/" + submission.submissionId())
+                        .body(response);
+            }
+            
             AssessmentResponse assessmentResult = assessmentService.processAssessment(request);
             
             Map<String, Object> response = new HashMap<>();
@@ -79,15 +146,81 @@ public class AssessmentController {
         }
     }
     
+    /**
+     * Bulk import of offline screenings (paper or offline tablets)
+     * Body is text/csv (header: email, assessment_type, completed_at, then one column per
+     * question id) or application/x-ndjson; it is streamed and scored row by row.
+     * Rejected rows are listed by line number and do not stop the import.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('STAFF') or hasRole('MANAGER') or hasRole('ADMIN')")
+    public ResponseEntity<?> importAssessments(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        try {
+            AssessmentImportService.Format format = MediaType.parseMediaType(contentType)
+                    .isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                    ? AssessmentImportService.Format.CSV
+                    : AssessmentImportService.Format.NDJSON;
+            
+            AssessmentImportResultDTO result;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                result = assessmentImportService.importAssessments(reader, format);
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Đã nhập " + result.imported() + "/" + result.totalRows() + " đánh giá");
+            response.put("data", result);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Lỗi khi nhập đánh giá: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+    
+    /**
+     * Get the state of an asynchronous submission (owner only)
+     */
+    @GetMapping("/submissions/{submissionId}")
+    @PreAuthorize("hasRole('MEMBER') or hasRole('STAFF') or hasRole('CONSULTANT') or hasRole('MANAGER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getSubmissionStatus(@PathVariable String submissionId, Authentication authentication) {
+        AssessmentSubmissionStatusDTO submission = assessmentSubmissionQueue.getStatus(submissionId, authentication.getName());
+        
+        if (submission == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Không tìm thấy yêu cầu đánh giá");
+            
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Lấy trạng thái đánh giá thành công");
+        response.put("data", submission);
+        
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Get user's assessment history
      * Implements historical tracking per Document FR-007
+     * Paged, newest first, with the user's recent risk trend
      */
     @GetMapping("/history")
     @PreAuthorize("hasRole('MEMBER') or hasRole('STAFF') or hasRole('CONSULTANT') or hasRole('MANAGER') or hasRole('ADMIN')")
-    public ResponseEntity<?> getAssessmentHistory() {
+    public ResponseEntity<?> getAssessmentHistory(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         try {
-            Map<String, Object> history = assessmentService.getUserAssessmentHistory();
+            Map<String, Object> history = assessmentService.getUserAssessmentHistory(
+                    Math.max(page, 0), Math.min(Math.max(size, 1), MAX_HISTORY_PAGE_SIZE));
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -1,19 +1,36 @@
 package org.ctpn.chungtayphongngua.controller;
 
+import org.ctpn.chungtayphongngua.dto.response.BlogCategoryDTO;
+import org.ctpn.chungtayphongngua.dto.response.BlogCommentDTO;
+import org.ctpn.chungtayphongngua.dto.response.BlogCommentNodeDTO;
+import org.ctpn.chungtayphongngua.dto.response.BlogModerationResultDTO;
+import org.ctpn.chungtayphongngua.dto.response.BlogPostDetailDTO;
+import org.ctpn.chungtayphongngua.dto.response.BlogPostSummaryDTO;
+import org.ctpn.chungtayphongngua.dto.response.ContentVersion;
+import org.ctpn.chungtayphongngua.dto.response.PostVersion;
+import org.ctpn.chungtayphongngua.dto.response.CursorPage;
+import org.ctpn.chungtayphongngua.service.BlogCommentIngestor;
+import org.ctpn.chungtayphongngua.service.BlogPostDetailCache;
 import org.ctpn.chungtayphongngua.service.BlogService;
+import org.ctpn.chungtayphongngua.service.BlogTrendingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Blog Controller - Complete Blog Management System
@@ -27,28 +44,60 @@ import java.util.Map;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class BlogController {
     
+    private static final int MAX_COMMENT_DEPTH = 10;
+    
+    private static final int MAX_COMMENT_REPLIES = 200;
+    
+    private static final int MAX_MODERATION_BATCH = 500;
+    
     @Autowired
     private BlogService blogService;
     
+    @Autowired
+    private BlogTrendingService blogTrendingService;
+    
+    @Autowired
+    private BlogPostDetailCache blogPostDetailCache;
+    
+    @Autowired
+    private BlogCommentIngestor blogCommentIngestor;
+    
     /**
      * Get published blog posts for public access (FR-001 Homepage requirement)
      * Accessible by all users including guests
+     * Passing a cursor parameter (empty for the first page) switches to keyset
+     * pagination: no total count, and the response carries nextCursor
+     * Supports conditional GET (ETag / Last-Modified) from the feed version stamp
      */
     @GetMapping("/public")
     public ResponseEntity<?> getPublishedBlogPosts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String category) {
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
         try {
-            Pageable pageable = PageRequest.of(page, size, Sort.by("publishedAt").descending());
-            Page<Map<String, Object>> blogPosts = blogService.getPublishedBlogPosts(pageable, category);
+            ContentVersion version = blogService.getPublishedFeedVersion(category);
+            String etag = version.etag("feed-" + Integer.toHexString(
+                    Objects.hash(page, size, category, cursor)));
+            if (webRequest.checkNotModified(etag, version.lastModified())) {
+                return null;
+            }
+            
+            Object blogPosts;
+            if (cursor != null) {
+                blogPosts = blogService.getPublishedBlogPostsByCursor(cursor, size, category);
+            } else {
+                Pageable pageable = PageRequest.of(page, size, Sort.by("publishedAt").descending());
+                blogPosts = blogService.getPublishedBlogPosts(pageable, category);
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Lấy danh sách blog thành công");
             response.put("data", blogPosts);
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(etag).lastModified(version.lastModified()).body(response);
             
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -59,21 +108,56 @@ public class BlogController {
         }
     }
     
+    /**
+     * Full-text search of published blog posts
+     * Results are ranked by relevance with highlighted snippets; pass nextCursor back as cursor for the next page
+     */
+    @GetMapping("/public/search")
+    public ResponseEntity<?> searchBlogPosts(
+            @RequestParam("q") String keyword,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        try {
+            CursorPage<BlogPostSummaryDTO> results = blogService.searchBlogPosts(keyword, cursor, size);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Tìm kiếm blog thành công");
+            response.put("data", results);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Lỗi khi tìm kiếm blog: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+    
     /**
      * Get latest blog posts for homepage (FR-001 requirement)
      * Shows latest 5 blog posts with titles and excerpts
+     * Supports conditional GET (ETag / Last-Modified) from the feed version stamp
      */
     @GetMapping("/latest")
-    public ResponseEntity<?> getLatestBlogPosts() {
+    public ResponseEntity<?> getLatestBlogPosts(WebRequest webRequest) {
         try {
-            List<Map<String, Object>> latestPosts = blogService.getLatestBlogPosts(5);
+            ContentVersion version = blogService.getPublishedFeedVersion(null);
+            String etag = version.etag("latest");
+            if (webRequest.checkNotModified(etag, version.lastModified())) {
+                return null;
+            }
+            
+            List<BlogPostSummaryDTO> latestPosts = blogService.getLatestBlogPosts(5);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Lấy blog mới nhất thành công");
             response.put("data", latestPosts);
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(etag).lastModified(version.lastModified()).body(response);
             
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -85,20 +169,78 @@ public class BlogController {
     }
     
     /**
-     * Get blog post by ID for public reading
+     * Get trending blog posts for homepage
+     * Served from the ranking precomputed by BlogTrendingService
      */
-    @GetMapping("/public/{postId}")
-    public ResponseEntity<?> getBlogPostById(@PathVariable Long postId) {
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrendingBlogPosts(@RequestParam(defaultValue = "5") int limit) {
         try {
-            Map<String, Object> blogPost = blogService.getBlogPostById(postId, true);
+            List<BlogPostSummaryDTO> trendingPosts = blogTrendingService.getTrendingPosts(limit);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("message", "Lấy nội dung blog thành công");
-            response.put("data", blogPost);
+            response.put("message", "Lấy blog nổi bật thành công");
+            response.put("data", trendingPosts);
             
             return ResponseEntity.ok(response);
             
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Lỗi khi lấy blog nổi bật: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+    
+    /**
+     * Get blog post by ID for public reading
+     * Supports conditional GET: a fresh client copy gets 304 (the view is still counted)
+     * Every request reads the post's version stamp (updated_at and counters, no content);
+     * while it matches the cached entry the pre-serialized gzipped JSON is served as is
+     */
+    @GetMapping("/public/{postId}")
+    public ResponseEntity<?> getBlogPostById(@PathVariable Long postId, WebRequest webRequest) {
+        try {
+            PostVersion version = blogService.getPublishedPostVersion(postId);
+            if (version == null) {
+                blogPostDetailCache.invalidate(postId);
+                throw new RuntimeException("Không tìm thấy bài viết");
+            }
+            
+            String etag = version.etag(postId);
+            if (webRequest.checkNotModified(etag, version.lastModified())) {
+                blogService.recordView(postId);
+                return null;
+            }
+            
+            BlogPostDetailCache.Entry cached = blogPostDetailCache.get(postId);
+            if (cached != null && cached.etag().equals(etag)) {
+                blogService.recordView(postId);
+            } else {
+                BlogPostDetailDTO blogPost = blogService.getBlogPostById(postId, true);
+                
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("message", "Lấy nội dung blog thành công");
+                response.put("data", blogPost);
+                
+                cached = blogPostDetailCache.put(postId, version.lastModified(), etag, response);
+            }
+            byte[] gzipped = cached.gzipped();
+            
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .eTag(cached.etag())
+                    .lastModified(cached.version())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            
+            String acceptEncoding = webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzipped);
+            }
+            return builder.body(BlogPostDetailCache.gunzip(gzipped));
+            
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
@@ -149,7 +291,7 @@ public class BlogController {
             Authentication authentication) {
         try {
             Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-            Page<Map<String, Object>> blogPosts = blogService.getBlogPostsForManagement(
+            Page<BlogPostSummaryDTO> blogPosts = blogService.getBlogPostsForManagement(
                 pageable, status, authentication.getName());
             
             Map<String, Object> response = new HashMap<>();
@@ -225,8 +367,62 @@ public class BlogController {
         }
     }
     
+    /**
+     * Bulk approve/reject blog posts (Manager+ only)
+     * Body: {"postIds": [1, 2, 3], "decision": "approve" | "reject", "reason": "..."}
+     * Returns a per-post outcome; safe to retry
+     */
+    @PutMapping("/moderate")
+    @PreAuthorize("hasRole('MANAGER') or hasRole('ADMIN')")
+    public ResponseEntity<?> moderateBlogPosts(
+            @RequestBody Map<String, Object> moderationData,
+            Authentication authentication) {
+        try {
+            Object rawIds = moderationData.get("postIds");
+            if (!(rawIds instanceof List<?> idList) || idList.isEmpty()) {
+                throw new RuntimeException("Danh sách bài viết không được để trống");
+            }
+            if (idList.size() > MAX_MODERATION_BATCH) {
+                throw new RuntimeException("Tối đa " + MAX_MODERATION_BATCH + " bài viết mỗi lần");
+            }
+            
+            List<Long> postIds = idList.stream()
+                .map(id -> Long.valueOf(String.valueOf(id)))
+                .toList();
+            String decision = (String) moderationData.get("decision");
+            
+            List<BlogModerationResultDTO> results = blogService.moderateBlogPosts(postIds, decision);
+            long applied = results.stream().filter(result -> "applied".equals(result.outcome())).count();
+            
+            Map<String, Object> data = new HashMap<>();
+            data.put("decision", decision);
+            data.put("reason", moderationData.get("reason"));
+            data.put("moderatedBy", authentication.getName());
+            data.put("applied", applied);
+            data.put("results", results);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Đã kiểm duyệt " + applied + "/" + results.size() + " bài viết");
+            response.put("data", data);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Lỗi khi kiểm duyệt bài viết: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+    
     /**
      * Add comment to blog post (Member+ only per FR-015)
+     * Comments are queued and written asynchronously in batches; returns 202 when
+     * accepted and 429 when the user is rate limited or the queue is full
+     * The accepted comment keeps the synchronous response fields; commentId is null
+     * because the id is only assigned when the queued comment is written
      */
     @PostMapping("/{postId}/comments")
     @PreAuthorize("hasRole('MEMBER') or hasRole('STAFF') or hasRole('CONSULTANT') or hasRole('MANAGER') or hasRole('ADMIN')")
@@ -236,14 +432,42 @@ public class BlogController {
             Authentication authentication) {
         try {
             String content = commentData.get("content");
-            Map<String, Object> comment = blogService.addComment(postId, content, authentication.getName());
+            if (content == null || content.isBlank()) {
+                throw new RuntimeException("Nội dung bình luận không được để trống");
+            }
+            String parentId = commentData.get("parentId");
+            
+            BlogCommentIngestor.Receipt receipt = blogCommentIngestor.submit(postId,
+                parentId != null && !parentId.isEmpty() ? Long.valueOf(parentId) : null,
+                content, authentication.getName());
+            
+            if (receipt.admission() != BlogCommentIngestor.Admission.QUEUED) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("message", receipt.admission() == BlogCommentIngestor.Admission.RATE_LIMITED
+                    ? "Bạn bình luận quá nhanh, vui lòng thử lại sau"
+                    : "Hệ thống đang bận, vui lòng thử lại sau");
+                
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "10")
+                    .body(errorResponse);
+            }
+            
+            Map<String, Object> comment = new HashMap<>();
+            comment.put("commentId", null);
+            comment.put("postId", postId);
+            comment.put("content", content);
+            comment.put("userName", receipt.userName());
+            comment.put("status", "pending");
+            comment.put("createdAt", receipt.createdAt());
+            comment.put("message", "Bình luận đã được thêm và đang chờ kiểm duyệt");
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Bình luận đã được thêm");
             response.put("data", comment);
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
             
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -264,7 +488,7 @@ public class BlogController {
             @RequestParam(defaultValue = "20") int size) {
         try {
             Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt"));
-            Page<Map<String, Object>> comments = blogService.getComments(postId, pageable);
+            Page<BlogCommentDTO> comments = blogService.getComments(postId, pageable);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -282,13 +506,43 @@ public class BlogController {
         }
     }
     
+    /**
+     * Get comment threads for a blog post
+     * Root comments are keyset-paginated (pass nextCursor back as cursor); replies are nested up to depth levels
+     */
+    @GetMapping("/{postId}/comments/thread")
+    public ResponseEntity<?> getCommentThreads(
+            @PathVariable Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "3") int depth) {
+        try {
+            CursorPage<BlogCommentNodeDTO> threads = blogService.getCommentThreads(
+                postId, cursor, size, Math.min(depth, MAX_COMMENT_DEPTH), MAX_COMMENT_REPLIES);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Lấy danh sách bình luận thành công");
+            response.put("data", threads);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Lỗi khi lấy bình luận: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+    
     /**
      * Get blog categories for filtering and organization
      */
     @GetMapping("/categories")
     public ResponseEntity<?> getBlogCategories() {
         try {
-            List<Map<String, Object>> categories = blogService.getBlogCategories();
+            List<BlogCategoryDTO> categories = blogService.getBlogCategories();
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -17,6 +17,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -92,6 +93,23 @@ public class ConsultationController {
         return ResponseEntity.ok(slots);
     }
 
+    /**
+     * Free slots per date for week/month calendar views (at most 62 days)
+     */
+    @GetMapping("/consultants/{consultantId}/calendar")
+    public ResponseEntity<?> getAvailabilityCalendar(
+            @PathVariable Long consultantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            Map<LocalDate, List<LocalTime>> slots = consultationService.getAvailableTimeSlots(consultantId,
+                    startDate, endDate);
+            return ResponseEntity.ok(slots);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
+    }
+
     @GetMapping("/consultants/{consultantId}/check")
     public ResponseEntity<Boolean> checkAvailability(
             @PathVariable Long consultantId,
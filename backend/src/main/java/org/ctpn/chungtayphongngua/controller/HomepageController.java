@@ -1,6 +1,9 @@
 package org.ctpn.chungtayphongngua.controller;
 
+import org.ctpn.chungtayphongngua.dto.response.BlogPostSummaryDTO;
+import org.ctpn.chungtayphongngua.dto.response.CourseRecommendationDTO;
 import org.ctpn.chungtayphongngua.service.BlogService;
+import org.ctpn.chungtayphongngua.service.CourseRecommendationService;
 import org.ctpn.chungtayphongngua.service.CourseService;
 import org.ctpn.chungtayphongngua.entity.Course;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,6 +32,9 @@ public class HomepageController {
     
     @Autowired
     private CourseService courseService;
+
+    @Autowired
+    private CourseRecommendationService courseRecommendationService;
     
     /**
      * Get homepage data including organization info, mission, and latest blog posts
@@ -99,7 +105,7 @@ public class HomepageController {
             ));
             
             // Latest Blog Posts (FR-001 requirement: latest 5 blog posts)
-            List<Map<String, Object>> latestBlogPosts = blogService.getLatestBlogPosts(5);
+            List<BlogPostSummaryDTO> latestBlogPosts = blogService.getLatestBlogPosts(5);
             
             // Statistics (dynamic or static for demo)
             Map<String, Object> statistics = new HashMap<>();
@@ -351,35 +357,33 @@ public class HomepageController {
     @GetMapping("/courses/recommendations")
     public ResponseEntity<?> getCourseRecommendations(@RequestParam String riskLevel) {
         try {
-            List<Course> recommendations = courseService.getCourseRecommendations(riskLevel);
-            
-            // Convert to simplified DTOs to avoid lazy loading issues
+            List<CourseRecommendationDTO> recommendations = courseRecommendationService.getTopRated(riskLevel);
+
             List<Map<String, Object>> simplifiedCourses = recommendations.stream()
                 .map(course -> {
                     Map<String, Object> courseDto = new HashMap<>();
-                    courseDto.put("courseId", course.getCourseId());
-                    courseDto.put("title", course.getTitle());
-                    courseDto.put("description", course.getDescription());
-                    courseDto.put("category", course.getCategory());
-                    courseDto.put("level", course.getLevel());
-                    courseDto.put("durationHours", course.getDurationHours());
-                    courseDto.put("maxStudents", course.getMaxStudents());
-                    courseDto.put("rating", course.getRating());
-                    courseDto.put("totalReviews", course.getTotalReviews());
-                    courseDto.put("price", course.getPrice());
-                    courseDto.put("isActive", course.getIsActive());
-                    courseDto.put("imageUrl", course.getImageUrl());
-                    
-                    // Add instructor info if available (handle null instructor)
-                    if (course.getInstructor() != null) {
+                    courseDto.put("courseId", course.courseId());
+                    courseDto.put("title", course.title());
+                    courseDto.put("description", course.description());
+                    courseDto.put("category", course.category());
+                    courseDto.put("level", course.level());
+                    courseDto.put("durationHours", course.durationHours());
+                    courseDto.put("maxStudents", course.maxStudents());
+                    courseDto.put("rating", course.rating());
+                    courseDto.put("totalReviews", course.totalReviews());
+                    courseDto.put("price", course.price());
+                    courseDto.put("isActive", true);
+                    courseDto.put("imageUrl", course.imageUrl());
+
+                    if (course.instructorId() != null) {
                         Map<String, Object> instructorInfo = new HashMap<>();
-                        instructorInfo.put("userId", course.getInstructor().getUserId());
-                        instructorInfo.put("fullName", course.getInstructor().getFullName());
+                        instructorInfo.put("userId", course.instructorId());
+                        instructorInfo.put("fullName", course.instructorName());
                         courseDto.put("instructor", instructorInfo);
                     } else {
                         courseDto.put("instructor", null);
                     }
-                    
+
                     return courseDto;
                 })
                 .toList();
@@ -0,0 +1,14 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of a user's assessment history (projection, no answers or recommendations)
+ */
+public record AssessmentHistoryItemDTO(
+        Long assessmentId,
+        String assessmentType,
+        Integer totalScore,
+        String riskLevel,
+        LocalDateTime completedAt) {
+}
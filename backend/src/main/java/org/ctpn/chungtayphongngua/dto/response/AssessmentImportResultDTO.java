@@ -0,0 +1,18 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk assessment import
+ * errors lists rejected rows by line number; it is capped, errorsTruncated tells when more rows failed
+ */
+public record AssessmentImportResultDTO(
+        long totalRows,
+        long imported,
+        long failed,
+        List<RowError> errors,
+        boolean errorsTruncated) {
+
+    public record RowError(long row, String message) {
+    }
+}
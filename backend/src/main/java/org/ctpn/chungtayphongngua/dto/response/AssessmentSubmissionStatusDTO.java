@@ -0,0 +1,29 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * State of an asynchronously processed assessment submission
+ * status: queued, completed (result set) or failed (message set)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AssessmentSubmissionStatusDTO(
+        String submissionId,
+        String status,
+        AssessmentResponse result,
+        String message,
+        @JsonIgnore String owner) {
+
+    public static AssessmentSubmissionStatusDTO queued(String submissionId, String owner) {
+        return new AssessmentSubmissionStatusDTO(submissionId, "queued", null, null, owner);
+    }
+
+    public AssessmentSubmissionStatusDTO completed(AssessmentResponse result) {
+        return new AssessmentSubmissionStatusDTO(submissionId, "completed", result, null, owner);
+    }
+
+    public AssessmentSubmissionStatusDTO failed(String message) {
+        return new AssessmentSubmissionStatusDTO(submissionId, "failed", null, message, owner);
+    }
+}
@@ -0,0 +1,19 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+import java.util.List;
+
+/**
+ * Risk trend over a user's most recent assessments
+ * recentScores is oldest first; delta is latest minus previous score (null with fewer than two)
+ */
+public record AssessmentTrendDTO(
+        List<Integer> recentScores,
+        Integer latestScore,
+        String latestRiskLevel,
+        Integer delta,
+        Double movingAverage) {
+
+    public static AssessmentTrendDTO empty() {
+        return new AssessmentTrendDTO(List.of(), null, null, null, null);
+    }
+}
@@ -0,0 +1,10 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+/**
+ * Blog category for filtering
+ */
+public record BlogCategoryDTO(
+        long categoryId,
+        String name,
+        String description) {
+}
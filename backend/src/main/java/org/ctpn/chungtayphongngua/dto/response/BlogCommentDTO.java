@@ -0,0 +1,13 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+import java.sql.Timestamp;
+
+/**
+ * Approved comment on a blog post
+ */
+public record BlogCommentDTO(
+        long commentId,
+        String content,
+        String userName,
+        Timestamp createdAt) {
+}
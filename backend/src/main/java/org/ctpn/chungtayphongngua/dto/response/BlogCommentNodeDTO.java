@@ -0,0 +1,17 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Comment in a thread with its (depth-limited) replies nested in order
+ */
+public record BlogCommentNodeDTO(
+        long commentId,
+        Long parentId,
+        String content,
+        String userName,
+        String userAvatar,
+        Timestamp createdAt,
+        List<BlogCommentNodeDTO> replies) {
+}
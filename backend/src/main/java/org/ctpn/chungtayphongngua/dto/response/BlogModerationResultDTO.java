@@ -0,0 +1,11 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+/**
+ * Per-post outcome of a bulk moderation request
+ * outcome: applied, unchanged (already in the requested state), invalid_transition or not_found
+ */
+public record BlogModerationResultDTO(
+        long postId,
+        String outcome,
+        String status) {
+}
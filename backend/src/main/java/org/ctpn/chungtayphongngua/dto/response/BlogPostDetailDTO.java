@@ -0,0 +1,21 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+import java.sql.Timestamp;
+
+/**
+ * Published blog post for public reading
+ */
+public record BlogPostDetailDTO(
+        long postId,
+        String title,
+        String content,
+        String excerpt,
+        String featuredImage,
+        Timestamp publishedAt,
+        long viewsCount,
+        int likesCount,
+        int readTime,
+        String authorName,
+        String authorAvatar,
+        String categoryName) {
+}
@@ -0,0 +1,34 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.sql.Timestamp;
+
+/**
+ * Blog post list row (public feed, latest, search, management)
+ * Fields a given listing does not select are left null and omitted from JSON
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BlogPostSummaryDTO(
+        long postId,
+        String title,
+        String excerpt,
+        String featuredImage,
+        String status,
+        Timestamp publishedAt,
+        Long viewsCount,
+        Integer likesCount,
+        Integer readTime,
+        String authorName,
+        String categoryName,
+        String snippet,
+        Float rank) {
+
+    /**
+     * Copy with search snippet and relevance rank attached
+     */
+    public BlogPostSummaryDTO withSearchMatch(String snippet, float rank) {
+        return new BlogPostSummaryDTO(postId, title, excerpt, featuredImage, status, publishedAt,
+                viewsCount, likesCount, readTime, authorName, categoryName, snippet, rank);
+    }
+}
@@ -0,0 +1,15 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+/**
+ * Lightweight version stamp for conditional GET on content endpoints
+ * lastModified is epoch millis of the newest updated_at, count the number of rows covered
+ */
+public record ContentVersion(long lastModified, long count) {
+
+    /**
+     * Strong ETag combining a caller-supplied scope (e.g. post id or page parameters) with this version
+     */
+    public String etag(String scope) {
+        return "\"" + scope + "-" + Long.toHexString(lastModified) + "-" + count + "\"";
+    }
+}
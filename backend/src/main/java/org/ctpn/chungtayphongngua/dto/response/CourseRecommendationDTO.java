@@ -0,0 +1,22 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+import java.math.BigDecimal;
+
+/**
+ * Active course as cached for recommendations (projection, no lazy associations)
+ */
+public record CourseRecommendationDTO(
+        Long courseId,
+        String title,
+        String description,
+        String category,
+        String level,
+        Integer durationHours,
+        Integer maxStudents,
+        BigDecimal rating,
+        Integer totalReviews,
+        BigDecimal price,
+        String imageUrl,
+        Long instructorId,
+        String instructorName) {
+}
@@ -0,0 +1,12 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+import java.util.List;
+
+/**
+ * Keyset-paginated slice; nextCursor is null on the last page
+ */
+public record CursorPage<T>(
+        List<T> content,
+        int size,
+        String nextCursor) {
+}
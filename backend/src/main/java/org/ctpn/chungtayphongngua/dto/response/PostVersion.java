@@ -0,0 +1,16 @@
+package org.ctpn.chungtayphongngua.dto.response;
+
+/**
+ * Version stamp of one published post for conditional GET and the detail cache
+ * lastModified is epoch millis of updated_at; the persisted view and like counters are
+ * included because they change the rendered detail without touching updated_at
+ */
+public record PostVersion(long lastModified, long viewCount, int likesCount) {
+
+    /**
+     * Strong ETag for the post detail at this version
+     */
+    public String etag(long postId) {
+        return "\"post-" + postId + "-" + Long.toHexString(lastModified) + "-" + viewCount + "-" + likesCount + "\"";
+    }
+}
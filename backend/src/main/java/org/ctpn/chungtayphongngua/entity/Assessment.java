@@ -1,8 +1,10 @@
 package org.ctpn.chungtayphongngua.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
 import java.time.LocalDateTime;
-import java.util.List;
 
 /**
  * Assessment Entity
@@ -12,7 +14,9 @@ import java.util.List;
  * Context: Maps to ctpn_assessment.assessments table per Document database schema
  */
 @Entity
-@Table(name = "assessments", schema = "ctpn_assessment")
+@Table(name = "assessments", schema = "ctpn_assessment", indexes = {
+        @Index(name = "idx_assessments_user_completed", columnList = "user_id, completed_at DESC")
+})
 public class Assessment {
     
     @Id
@@ -48,8 +52,10 @@ public class Assessment {
     @Column(name = "is_deleted", nullable = false)
     private Boolean isDeleted = false;
     
-    @OneToMany(mappedBy = "assessment", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    private List<AssessmentResult> results;
+    // Packed answers: {"<questionId>": ["<answerValue>", <scoreWeight>], ...}
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "answers", columnDefinition = "jsonb")
+    private String answers;
     
     // Constructors
     public Assessment() {
@@ -144,12 +150,12 @@ public class Assessment {
         this.isDeleted = isDeleted;
     }
     
-    public List<AssessmentResult> getResults() {
-        return results;
+    public String getAnswers() {
+        return answers;
     }
     
-    public void setResults(List<AssessmentResult> results) {
-        this.results = results;
+    public void setAnswers(String answers) {
+        this.answers = answers;
     }
     
     @PrePersist
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "blog_posts", schema = "ctpn_content")
+@Table(name = "blog_posts", schema = "ctpn_content", indexes = {
+        @Index(name = "idx_blog_posts_feed", columnList = "status, published_at DESC, post_id DESC")
+})
 public class BlogPost {
 
     @Id
@@ -47,6 +49,15 @@ public class BlogPost {
     @Column(name = "is_deleted", nullable = false)
     private boolean isDeleted = false;
 
+    @Column(name = "word_count")
+    private Integer wordCount;
+
+    @Column(name = "read_time")
+    private Integer readTime;
+
+    @Column(name = "updated_at", nullable = false, columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    private LocalDateTime updatedAt;
+
     public BlogPost() {
         this.publishedAt = LocalDateTime.now();
     }
@@ -156,4 +167,63 @@ public class BlogPost {
     public void setDeleted(boolean deleted) {
         isDeleted = deleted;
     }
+
+    public Integer getWordCount() {
+        return wordCount;
+    }
+
+    public void setWordCount(Integer wordCount) {
+        this.wordCount = wordCount;
+    }
+
+    public Integer getReadTime() {
+        return readTime;
+    }
+
+    public void setReadTime(Integer readTime) {
+        this.readTime = readTime;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        this.updatedAt = LocalDateTime.now();
+        this.wordCount = countWords(content);
+        this.readTime = readTimeMinutes(wordCount);
+    }
+
+    /**
+     * Count whitespace-separated words without allocating a token array
+     */
+    public static int countWords(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int count = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                inWord = false;
+            } else if (!inWord) {
+                inWord = true;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Read time in minutes at approx 200 words per minute, at least 1
+     */
+    public static int readTimeMinutes(int wordCount) {
+        return Math.max((int) Math.ceil(wordCount / 200.0), 1);
+    }
 }
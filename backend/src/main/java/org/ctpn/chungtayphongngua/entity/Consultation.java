@@ -11,7 +11,9 @@ import java.time.LocalDateTime;
  * Context: Maps to ctpn_consultation.consultations table per Document database schema
  */
 @Entity
-@Table(name = "consultations", schema = "ctpn_consultation")
+@Table(name = "consultations", schema = "ctpn_consultation", indexes = {
+        @Index(name = "idx_consultations_consultant_scheduled", columnList = "consultant_id, scheduled_at")
+})
 public class Consultation {
     
     @Id
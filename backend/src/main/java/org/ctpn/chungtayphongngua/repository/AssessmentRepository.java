@@ -1,8 +1,14 @@
 package org.ctpn.chungtayphongngua.repository;
 
+import org.ctpn.chungtayphongngua.dto.response.AssessmentHistoryItemDTO;
 import org.ctpn.chungtayphongngua.entity.Assessment;
 import org.ctpn.chungtayphongngua.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +18,62 @@ import java.util.Optional;
 public interface AssessmentRepository extends JpaRepository<Assessment, Long> {
     List<Assessment> findByUserOrderByCompletedAtDesc(User user);
     Optional<Assessment> findTopByUserOrderByCompletedAtDesc(User user);
+    
+    /**
+     * Paged history for a user, newest first, as a projection (no entity or answer loading)
+     */
+    @Query(value = "SELECT new org.ctpn.chungtayphongngua.dto.response.AssessmentHistoryItemDTO(" +
+           "a.assessmentId, t.typeName, a.totalScore, a.riskLevel, a.completedAt) " +
+           "FROM Assessment a LEFT JOIN AssessmentType t ON t.typeId = a.typeId " +
+           "WHERE a.user.email = :email AND a.isDeleted = false " +
+           "ORDER BY a.completedAt DESC, a.assessmentId DESC",
+           countQuery = "SELECT COUNT(a) FROM Assessment a WHERE a.user.email = :email AND a.isDeleted = false")
+    Page<AssessmentHistoryItemDTO> findHistoryByUserEmail(@Param("email") String email, Pageable pageable);
+    
+    /**
+     * Most recent history rows for a user without a count query (for the risk trend)
+     */
+    @Query("SELECT new org.ctpn.chungtayphongngua.dto.response.AssessmentHistoryItemDTO(" +
+           "a.assessmentId, t.typeName, a.totalScore, a.riskLevel, a.completedAt) " +
+           "FROM Assessment a LEFT JOIN AssessmentType t ON t.typeId = a.typeId " +
+           "WHERE a.user.email = :email AND a.isDeleted = false " +
+           "ORDER BY a.completedAt DESC, a.assessmentId DESC")
+    List<AssessmentHistoryItemDTO> findRecentHistoryByUserEmail(@Param("email") String email, Pageable pageable);
+    
+    /**
+     * Risk level mix from the risk_level_counts summary; rows are [risk_level, count]
+     */
+    @Query(value = "SELECT r.risk_level, SUM(r.assessment_count) FROM ctpn_assessment.risk_level_counts r " +
+           "GROUP BY r.risk_level", nativeQuery = true)
+    List<Object[]> getRiskLevelDistribution();
+    
+    @Modifying
+    @Query(value = "INSERT INTO ctpn_assessment.risk_level_counts (type_id, risk_level, assessment_count) " +
+           "VALUES (:typeId, :riskLevel, 1) " +
+           "ON CONFLICT (type_id, risk_level) " +
+           "DO UPDATE SET assessment_count = risk_level_counts.assessment_count + 1", nativeQuery = true)
+    int incrementRiskLevelCount(@Param("typeId") Integer typeId, @Param("riskLevel") String riskLevel);
+    
+    /**
+     * Block summary upserts (submissions, imports) until the current transaction ends,
+     * while still allowing reads; used by the rebuild so no increment is lost or counted twice
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE ctpn_assessment.answer_distribution, ctpn_assessment.risk_level_counts " +
+           "IN SHARE ROW EXCLUSIVE MODE", nativeQuery = true)
+    void lockSummaryTables();
+    
+    @Modifying
+    @Query(value = "DELETE FROM ctpn_assessment.risk_level_counts", nativeQuery = true)
+    int clearRiskLevelCounts();
+    
+    /**
+     * Recompute risk_level_counts from all assessments
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ctpn_assessment.risk_level_counts (type_id, risk_level, assessment_count) " +
+           "SELECT a.type_id, COALESCE(a.risk_level, 'LOW'), COUNT(*) " +
+           "FROM ctpn_assessment.assessments a WHERE a.is_deleted = false " +
+           "GROUP BY a.type_id, COALESCE(a.risk_level, 'LOW')", nativeQuery = true)
+    int rebuildRiskLevelCounts();
 }
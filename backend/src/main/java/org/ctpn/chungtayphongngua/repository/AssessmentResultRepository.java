@@ -1,14 +1,13 @@
 package org.ctpn.chungtayphongngua.repository;
 
-import org.ctpn.chungtayphongngua.entity.Assessment;
 import org.ctpn.chungtayphongngua.entity.AssessmentResult;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Assessment Result Repository
@@ -16,67 +15,57 @@ import java.util.Optional;
  * Created: [Current session date]
  * Version: 1.0
  * Context: Database operations for ctpn_assessment.assessment_results table
+ * Answers live packed in assessments.answers; the legacy per-question rows are only
+ * read by AssessmentAnswerMigration, so no queries over them are exposed here.
  */
 @Repository
 public interface AssessmentResultRepository extends JpaRepository<AssessmentResult, Long> {
     
     /**
-     * Find results by assessment
+     * Find answers with high scores (for analysis)
+     * Reads the packed assessments.answers column; rows are
+     * [assessment_id, question_id, answer_value, score_weight]
      */
-    List<AssessmentResult> findByAssessmentAndIsDeletedFalse(Assessment assessment);
+    @Query(value = "SELECT a.assessment_id, e.key AS question_id, e.value ->> 0 AS answer_value, " +
+           "(e.value ->> 1)::int AS score_weight " +
+           "FROM ctpn_assessment.assessments a CROSS JOIN LATERAL jsonb_each(a.answers) e " +
+           "WHERE a.is_deleted = false AND (e.value ->> 1)::int >= :threshold " +
+           "ORDER BY score_weight DESC", nativeQuery = true)
+    List<Object[]> findHighScoreResults(@Param("threshold") Integer threshold);
     
     /**
-     * Find results by assessment ordered by question ID
-     */
-    List<AssessmentResult> findByAssessmentAndIsDeletedFalseOrderByQuestionId(Assessment assessment);
-    
-    /**
-     * Find specific result by assessment and question ID
-     */
-    Optional<AssessmentResult> findByAssessmentAndQuestionIdAndIsDeletedFalse(Assessment assessment, String questionId);
-    
-    /**
-     * Count results for an assessment
-     */
-    long countByAssessmentAndIsDeletedFalse(Assessment assessment);
-    
-    /**
-     * Find results with specific answer value
-     */
-    List<AssessmentResult> findByAssessmentAndAnswerValueAndIsDeletedFalse(Assessment assessment, String answerValue);
-    
-    /**
-     * Find results by score weight range
-     */
-    @Query("SELECT ar FROM AssessmentResult ar WHERE ar.assessment = :assessment " +
-           "AND ar.scoreWeight BETWEEN :minScore AND :maxScore AND ar.isDeleted = false")
-    List<AssessmentResult> findByAssessmentAndScoreRange(@Param("assessment") Assessment assessment,
-                                                        @Param("minScore") Integer minScore,
-                                                        @Param("maxScore") Integer maxScore);
-    
-    /**
-     * Get total score for an assessment
+     * Get answer distribution for a question across all assessments
+     * Reads the incrementally maintained answer_distribution summary; rows are [answer_value, count]
      */
-    @Query("SELECT SUM(ar.scoreWeight) FROM AssessmentResult ar WHERE ar.assessment = :assessment " +
-           "AND ar.isDeleted = false")
-    Integer getTotalScoreForAssessment(@Param("assessment") Assessment assessment);
+    @Query(value = "SELECT d.answer_value, SUM(d.answer_count) " +
+           "FROM ctpn_assessment.answer_distribution d " +
+           "WHERE d.question_id = :questionId GROUP BY d.answer_value", nativeQuery = true)
+    List<Object[]> getAnswerDistributionForQuestion(@Param("questionId") String questionId);
     
     /**
-     * Find results by multiple assessments (for batch operations)
+     * Add one submission's packed answers ({"<questionId>": ["<answerValue>", <scoreWeight>]})
+     * to the answer_distribution counters
      */
-    List<AssessmentResult> findByAssessmentInAndIsDeletedFalse(List<Assessment> assessments);
+    @Modifying
+    @Query(value = "INSERT INTO ctpn_assessment.answer_distribution (type_id, question_id, answer_value, answer_count) " +
+           "SELECT :typeId, e.key, COALESCE(e.value ->> 0, ''), 1 " +
+           "FROM jsonb_each(CAST(:answers AS jsonb)) e " +
+           "ON CONFLICT (type_id, question_id, answer_value) " +
+           "DO UPDATE SET answer_count = answer_distribution.answer_count + 1", nativeQuery = true)
+    int incrementAnswerDistribution(@Param("typeId") Integer typeId, @Param("answers") String answers);
     
-    /**
-     * Find results with high scores (for analysis)
-     */
-    @Query("SELECT ar FROM AssessmentResult ar WHERE ar.scoreWeight >= :threshold " +
-           "AND ar.isDeleted = false ORDER BY ar.scoreWeight DESC")
-    List<AssessmentResult> findHighScoreResults(@Param("threshold") Integer threshold);
+    @Modifying
+    @Query(value = "DELETE FROM ctpn_assessment.answer_distribution", nativeQuery = true)
+    int clearAnswerDistribution();
     
     /**
-     * Get answer distribution for a question across all assessments
+     * Recompute answer_distribution from the packed answers of all assessments
      */
-    @Query("SELECT ar.answerValue, COUNT(ar) FROM AssessmentResult ar " +
-           "WHERE ar.questionId = :questionId AND ar.isDeleted = false GROUP BY ar.answerValue")
-    List<Object[]> getAnswerDistributionForQuestion(@Param("questionId") String questionId);
-} 
\ No newline at end of file
+    @Modifying
+    @Query(value = "INSERT INTO ctpn_assessment.answer_distribution (type_id, question_id, answer_value, answer_count) " +
+           "SELECT a.type_id, e.key, COALESCE(e.value ->> 0, ''), COUNT(*) " +
+           "FROM ctpn_assessment.assessments a CROSS JOIN LATERAL jsonb_each(a.answers) e " +
+           "WHERE a.is_deleted = false " +
+           "GROUP BY a.type_id, e.key, COALESCE(e.value ->> 0, '')", nativeQuery = true)
+    int rebuildAnswerDistribution();
+}
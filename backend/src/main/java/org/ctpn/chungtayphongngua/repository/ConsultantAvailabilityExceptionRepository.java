@@ -7,12 +7,11 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
-import java.time.LocalTime;
-import java.util.Optional;
+import java.util.List;
 
 @Repository
 public interface ConsultantAvailabilityExceptionRepository extends JpaRepository<ConsultantAvailabilityException, Long> {
 
-    @Query("SELECT e FROM ConsultantAvailabilityException e WHERE e.user.userId = :consultantId AND e.exceptionDate = :date AND e.startTime <= :time AND e.endTime > :time")
-    Optional<ConsultantAvailabilityException> findExceptionAtDateTime(@Param("consultantId") Long consultantId, @Param("date") LocalDate date, @Param("time") LocalTime time);
+    @Query("SELECT e FROM ConsultantAvailabilityException e WHERE e.user.userId = :consultantId AND e.exceptionDate BETWEEN :startDate AND :endDate AND e.isDeleted = false")
+    List<ConsultantAvailabilityException> findExceptionsBetween(@Param("consultantId") Long consultantId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 }
@@ -14,8 +14,11 @@ import java.util.List;
 @Repository
 public interface ConsultationRepository extends JpaRepository<Consultation, Long> {
 
-    @Query("SELECT c FROM Consultation c WHERE c.consultant.userId = :consultantId AND c.scheduledAt < :endTime AND c.scheduledAt > :startTime")
-    List<Consultation> findConflictingConsultations(@Param("consultantId") Long consultantId, @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+    /**
+     * Start and duration (Object[]{LocalDateTime, Integer}) of the consultant's non-cancelled bookings starting in [from, to)
+     */
+    @Query("SELECT c.scheduledAt, c.durationMinutes FROM Consultation c WHERE c.consultant.userId = :consultantId AND c.scheduledAt >= :from AND c.scheduledAt < :to AND c.status <> 'cancelled' AND c.isDeleted = false")
+    List<Object[]> findBookedIntervals(@Param("consultantId") Long consultantId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
     List<Consultation> findByMemberUserIdOrderByScheduledAtDesc(Long userId);
 
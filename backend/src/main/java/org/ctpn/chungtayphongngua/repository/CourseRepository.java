@@ -1,5 +1,6 @@
 package org.ctpn.chungtayphongngua.repository;
 
+import org.ctpn.chungtayphongngua.dto.response.CourseRecommendationDTO;
 import org.ctpn.chungtayphongngua.entity.Course;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -26,12 +27,23 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     @Query("SELECT c FROM Course c JOIN c.enrollments e WHERE e.user.userId = :userId")
     List<Course> findEnrolledCoursesByUserId(@Param("userId") Long userId);
 
-    List<Course> findTop3ByIsActiveTrueOrderByRatingDesc(Pageable pageable);
-    
-    List<Course> findTop2ByIsActiveTrueOrderByRatingDesc(Pageable pageable);
-
     List<Course> findByTitleContainingIgnoreCaseAndIsActiveTrue(String title);
 
-    @Query("SELECT c FROM Course c WHERE c.category IN :categories AND c.isActive = true")
-    List<Course> findRecommendedCourses(@Param("categories") List<String> categories);
+    /**
+     * Every active course as a recommendation projection, instructor joined in the same query
+     */
+    @Query("SELECT new org.ctpn.chungtayphongngua.dto.response.CourseRecommendationDTO(" +
+           "c.courseId, c.title, c.description, c.category, c.level, c.durationHours, c.maxStudents, " +
+           "c.rating, c.totalReviews, c.price, c.imageUrl, i.userId, i.fullName) " +
+           "FROM Course c LEFT JOIN c.instructor i WHERE c.isActive = true")
+    List<CourseRecommendationDTO> findRecommendationCandidates();
+
+    /**
+     * Digest of the columns recommendations depend on; changes whenever a course is
+     * added, removed, (de)activated or re-rated
+     */
+    @Query(value = "SELECT COALESCE(md5(string_agg(concat_ws('|', course_id, is_active, is_deleted, title, " +
+           "category, level, rating, total_reviews, updated_at, instructor_id), ',' ORDER BY course_id)), '') " +
+           "FROM ctpn_learning.courses", nativeQuery = true)
+    String getCatalogFingerprint();
 }
@@ -2,10 +2,13 @@ package org.ctpn.chungtayphongngua.repository;
 
 import org.ctpn.chungtayphongngua.entity.Enrollment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
@@ -14,4 +17,7 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     Optional<Enrollment> findByUserUserIdAndCourseCourseId(Long userId, Long courseId);
 
     List<Enrollment> findByUserUserIdAndStatus(Long userId, String status);
+
+    @Query("SELECT e.course.courseId FROM Enrollment e WHERE e.user.userId = :userId")
+    Set<Long> findCourseIdsByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,69 @@
+package org.ctpn.chungtayphongngua.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Packs answers stored one row per question in assessment_results into the
+ * assessments.answers JSONB column, in small batches of assessments.
+ * Assessments that already have packed answers are skipped, so the run is idempotent;
+ * the legacy rows are left in place.
+ */
+@Component
+public class AssessmentAnswerMigration implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssessmentAnswerMigration.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String MIGRATE_QUERY = "UPDATE ctpn_assessment.assessments a SET answers = p.answers " +
+            "FROM (SELECT ar.assessment_id, " +
+            "jsonb_object_agg(ar.question_id, jsonb_build_array(ar.answer_value, ar.score_weight)) AS answers " +
+            "FROM ctpn_assessment.assessment_results ar " +
+            "WHERE ar.is_deleted = false AND ar.assessment_id IN (" +
+            "SELECT pending.assessment_id FROM ctpn_assessment.assessments pending " +
+            "WHERE pending.answers IS NULL AND EXISTS (SELECT 1 FROM ctpn_assessment.assessment_results r " +
+            "WHERE r.assessment_id = pending.assessment_id AND r.is_deleted = false) LIMIT ?) " +
+            "GROUP BY ar.assessment_id) p " +
+            "WHERE a.assessment_id = p.assessment_id";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Override
+    public void run(String... args) {
+        migrate();
+    }
+
+    /**
+     * Pack answers for assessments that have none yet, returning the number of assessments updated
+     */
+    public int migrate() {
+        int total = 0;
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(MIGRATE_QUERY)) {
+            stmt.setInt(1, BATCH_SIZE);
+            int updated;
+            do {
+                updated = stmt.executeUpdate();
+                total += updated;
+            } while (updated == BATCH_SIZE);
+        } catch (SQLException e) {
+            logger.error("Failed to pack assessment answers: {}", e.getMessage());
+        }
+
+        if (total > 0) {
+            logger.info("Packed answers for {} assessments.", total);
+        }
+        return total;
+    }
+}
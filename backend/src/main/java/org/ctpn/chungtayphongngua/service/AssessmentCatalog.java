@@ -0,0 +1,109 @@
+package org.ctpn.chungtayphongngua.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * In-memory catalog of assessment question sets (ASSIST for adults, CRAFFT for youth)
+ * Each definition is loaded at startup and kept as the pre-serialized
+ * /assessment/questions response plus an ETag derived from its bytes, so the
+ * endpoint never touches the database. A background refresh reloads the
+ * definitions and swaps them in (and recompiles scoring tables) only when they changed.
+ */
+@Component
+public class AssessmentCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssessmentCatalog.class);
+
+    /** Representative ages for the two age groups (see AssessmentService.getAssessmentQuestions) */
+    private static final int ADULT_AGE = 18;
+    private static final int YOUTH_AGE = 17;
+
+    @Autowired
+    private AssessmentService assessmentService;
+
+    @Autowired
+    private AssessmentScoringEngine assessmentScoringEngine;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile Entry adult;
+
+    private volatile Entry youth;
+
+    /**
+     * Pre-serialized questions response for the given age, or null if the catalog is not loaded yet
+     */
+    public Entry forAge(int age) {
+        return age >= ADULT_AGE ? adult : youth;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    /**
+     * Reload both definitions; entries whose bytes did not change are kept as they are
+     */
+    @Scheduled(fixedDelayString = "${assessment.catalog.refresh-interval-ms:300000}",
+            initialDelayString = "${assessment.catalog.refresh-interval-ms:300000}")
+    public void refresh() {
+        try {
+            Entry newAdult = build(ADULT_AGE);
+            Entry newYouth = build(YOUTH_AGE);
+
+            boolean changed = adult != null && !adult.etag().equals(newAdult.etag())
+                    || youth != null && !youth.etag().equals(newYouth.etag());
+            if (adult == null || !adult.etag().equals(newAdult.etag())) {
+                adult = newAdult;
+            }
+            if (youth == null || !youth.etag().equals(newYouth.etag())) {
+                youth = newYouth;
+            }
+
+            if (changed) {
+                assessmentScoringEngine.invalidate();
+                logger.info("Assessment catalog changed, reloaded question sets.");
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh assessment catalog: {}", e.getMessage());
+        }
+    }
+
+    private Entry build(int age) {
+        Map<String, Object> questions = assessmentService.getAssessmentQuestions(age);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Lấy câu hỏi đánh giá thành công");
+        response.put("data", questions);
+
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể tuần tự hóa câu hỏi đánh giá", e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        String etag = "\"assessment-" + questions.get("assessmentType") + "-" + Long.toHexString(crc.getValue()) + "\"";
+        return new Entry(etag, body);
+    }
+
+    public record Entry(String etag, byte[] body) {
+    }
+}
@@ -0,0 +1,466 @@
+package org.ctpn.chungtayphongngua.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ctpn.chungtayphongngua.dto.response.AssessmentImportResultDTO;
+import org.ctpn.chungtayphongngua.dto.response.AssessmentImportResultDTO.RowError;
+import org.ctpn.chungtayphongngua.entity.AssessmentType;
+import org.ctpn.chungtayphongngua.repository.AssessmentTypeRepository;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bulk import of offline ASSIST/CRAFFT screenings (CSV or NDJSON)
+ * Rows are parsed one line at a time and scored with the same compiled tables as
+ * /assessment/submit. Each chunk resolves its user emails with one query, streams the
+ * valid rows into a temporary table with COPY and moves them into assessments (answers
+ * packed in the JSONB column) and the summary counters in one transaction.
+ * Invalid rows are reported by line number and never abort the import; a chunk that
+ * fails in the database is reported row by row and the import continues.
+ */
+@Service
+public class AssessmentImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssessmentImportService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String STAGING_TABLE_QUERY = "CREATE TEMP TABLE assessment_import (" +
+            "user_id BIGINT NOT NULL, type_id INTEGER NOT NULL, completed_at TIMESTAMP NOT NULL, " +
+            "total_score INTEGER NOT NULL, risk_level VARCHAR(20), recommendations TEXT, answers JSONB) " +
+            "ON COMMIT DROP";
+
+    private static final String COPY_QUERY = "COPY assessment_import " +
+            "(user_id, type_id, completed_at, total_score, risk_level, recommendations, answers) " +
+            "FROM STDIN WITH (FORMAT csv)";
+
+    private static final String INSERT_ASSESSMENTS_QUERY = "INSERT INTO ctpn_assessment.assessments " +
+            "(user_id, type_id, started_at, completed_at, total_score, risk_level, recommendations, " +
+            "created_at, is_deleted, answers) " +
+            "SELECT user_id, type_id, completed_at, completed_at, total_score, risk_level, recommendations, " +
+            "now(), false, answers FROM assessment_import";
+
+    private static final String ANSWER_DISTRIBUTION_QUERY = "INSERT INTO ctpn_assessment.answer_distribution " +
+            "(type_id, question_id, answer_value, answer_count) " +
+            "SELECT i.type_id, e.key, COALESCE(e.value ->> 0, ''), COUNT(*) " +
+            "FROM assessment_import i CROSS JOIN LATERAL jsonb_each(i.answers) e " +
+            "GROUP BY i.type_id, e.key, COALESCE(e.value ->> 0, '') " +
+            "ON CONFLICT (type_id, question_id, answer_value) " +
+            "DO UPDATE SET answer_count = answer_distribution.answer_count + EXCLUDED.answer_count";
+
+    private static final String RISK_LEVEL_COUNTS_QUERY = "INSERT INTO ctpn_assessment.risk_level_counts " +
+            "(type_id, risk_level, assessment_count) " +
+            "SELECT type_id, COALESCE(risk_level, 'LOW'), COUNT(*) FROM assessment_import " +
+            "GROUP BY type_id, COALESCE(risk_level, 'LOW') " +
+            "ON CONFLICT (type_id, risk_level) " +
+            "DO UPDATE SET assessment_count = risk_level_counts.assessment_count + EXCLUDED.assessment_count";
+
+    private static final String USER_IDS_QUERY = "SELECT email, user_id FROM ctpn_core.users " +
+            "WHERE is_deleted = false AND email = ANY(?)";
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private AssessmentService assessmentService;
+
+    @Autowired
+    private AssessmentScoringEngine assessmentScoringEngine;
+
+    @Autowired
+    private AssessmentTypeRepository assessmentTypeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${assessment.import.chunk-size:5000}")
+    private int chunkSize;
+
+    /**
+     * Import every row of the input; the reader is consumed line by line and not closed
+     * Throws IllegalArgumentException when a CSV header lacks the required columns
+     */
+    public AssessmentImportResultDTO importAssessments(BufferedReader input, Format format) throws IOException {
+        long started = System.currentTimeMillis();
+        ImportRun run = new ImportRun();
+        RowReader rows = format == Format.CSV ? new CsvRowReader(input) : new NdjsonRowReader(input);
+
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        ImportRow row;
+        while ((row = rows.next()) != null) {
+            run.totalRows++;
+            if (row.error() != null) {
+                run.reject(row.line(), row.error());
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, run);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, run);
+        }
+
+        logger.info("Imported {} of {} assessment rows in {} ms ({} rejected).",
+                run.imported, run.totalRows, System.currentTimeMillis() - started, run.failed);
+        return new AssessmentImportResultDTO(run.totalRows, run.imported, run.failed,
+                run.errors, run.failed > run.errors.size());
+    }
+
+    private void writeChunk(List<ImportRow> chunk, ImportRun run) {
+        // Rows still to be written; these are the ones reported if the database write fails
+        List<ImportRow> pending = chunk;
+        try (Connection conn = dataSource.getConnection()) {
+            Map<String, Long> userIds = findUserIds(conn, chunk);
+
+            List<ImportRow> accepted = new ArrayList<>(chunk.size());
+            StringBuilder copyData = new StringBuilder(chunk.size() * 256);
+            for (ImportRow row : chunk) {
+                Long userId = userIds.get(row.email());
+                if (userId == null) {
+                    run.reject(row.line(), "Không tìm thấy người dùng: " + row.email());
+                    continue;
+                }
+                int typeId = run.typeIds.computeIfAbsent(row.assessmentType(), this::findTypeId);
+                if (typeId < 0) {
+                    run.reject(row.line(), "Loại đánh giá chưa được cấu hình: " + row.assessmentType());
+                    continue;
+                }
+                appendCopyRow(copyData, userId, typeId, row);
+                accepted.add(row);
+            }
+            pending = accepted;
+            if (accepted.isEmpty()) {
+                return;
+            }
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(STAGING_TABLE_QUERY);
+                conn.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPY_QUERY, new StringReader(copyData.toString()));
+                int inserted = stmt.executeUpdate(INSERT_ASSESSMENTS_QUERY);
+                stmt.executeUpdate(ANSWER_DISTRIBUTION_QUERY);
+                stmt.executeUpdate(RISK_LEVEL_COUNTS_QUERY);
+                conn.commit();
+                run.imported += inserted;
+            } catch (SQLException | IOException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException | IOException e) {
+            logger.error("Failed to import assessment chunk (lines {}-{}): {}",
+                    chunk.get(0).line(), chunk.get(chunk.size() - 1).line(), e.getMessage());
+            for (ImportRow row : pending) {
+                run.reject(row.line(), "Lỗi khi ghi dữ liệu: " + e.getMessage());
+            }
+        }
+    }
+
+    private Map<String, Long> findUserIds(Connection conn, List<ImportRow> chunk) throws SQLException {
+        String[] emails = chunk.stream().map(ImportRow::email).distinct().toArray(String[]::new);
+        Map<String, Long> userIds = new HashMap<>(emails.length * 2);
+        try (PreparedStatement stmt = conn.prepareStatement(USER_IDS_QUERY)) {
+            stmt.setArray(1, conn.createArrayOf("text", emails));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    userIds.put(rs.getString(1), rs.getLong(2));
+                }
+            }
+        }
+        return userIds;
+    }
+
+    /** Type id for ASSIST (adult) or CRAFFT (youth), -1 when the type is missing */
+    private Integer findTypeId(String assessmentType) {
+        String ageGroup = "CRAFFT".equals(assessmentType) ? "youth" : "adult";
+        Optional<AssessmentType> type = assessmentTypeRepository.findByTypeNameAndAgeGroup(assessmentType, ageGroup);
+        return type.map(t -> t.getTypeId().intValue()).orElse(-1);
+    }
+
+    private void appendCopyRow(StringBuilder out, long userId, int typeId, ImportRow row) {
+        AssessmentScoringEngine.ScoringTable table = assessmentScoringEngine.tableFor(row.assessmentType());
+        int totalScore = table.score(row.answers());
+        String riskLevel = table.riskLevel(totalScore);
+
+        out.append(userId).append(',')
+                .append(typeId).append(',')
+                .append(row.completedAt()).append(',')
+                .append(totalScore).append(',');
+        appendCsvField(out, riskLevel);
+        out.append(',');
+        appendCsvField(out, AssessmentService.generateRecommendations(riskLevel, row.assessmentType()));
+        out.append(',');
+        appendCsvField(out, assessmentService.packAnswers(row.answers(), table));
+        out.append('\n');
+    }
+
+    private static void appendCsvField(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    /**
+     * Validate the fields shared by both formats and build the row (or its error)
+     */
+    private static ImportRow toRow(long line, String email, String assessmentType, String completedAt,
+                                   Map<String, String> answers) {
+        if (email == null || email.isBlank()) {
+            return ImportRow.invalid(line, "Thiếu email người dùng");
+        }
+        String type = assessmentType == null ? "" : assessmentType.trim().toUpperCase(Locale.ROOT);
+        if (!"ASSIST".equals(type) && !"CRAFFT".equals(type)) {
+            return ImportRow.invalid(line, "Loại đánh giá không hợp lệ: " + assessmentType);
+        }
+        answers.values().removeIf(value -> value == null || value.isBlank());
+        if (answers.isEmpty()) {
+            return ImportRow.invalid(line, "Không có câu trả lời");
+        }
+
+        LocalDateTime completed;
+        try {
+            completed = parseCompletedAt(completedAt);
+        } catch (DateTimeParseException e) {
+            return ImportRow.invalid(line, "Thời gian hoàn thành không hợp lệ: " + completedAt);
+        }
+        if (completed.isAfter(LocalDateTime.now())) {
+            return ImportRow.invalid(line, "Thời gian hoàn thành nằm trong tương lai: " + completedAt);
+        }
+        return new ImportRow(line, email.trim(), type, completed, answers, null);
+    }
+
+    /** ISO date-time or date; missing values mean now */
+    private static LocalDateTime parseCompletedAt(String value) {
+        if (value == null || value.isBlank()) {
+            return LocalDateTime.now();
+        }
+        String trimmed = value.trim();
+        return trimmed.length() == 10 ? LocalDate.parse(trimmed).atStartOfDay() : LocalDateTime.parse(trimmed);
+    }
+
+    private record ImportRow(long line, String email, String assessmentType, LocalDateTime completedAt,
+                             Map<String, String> answers, String error) {
+
+        static ImportRow invalid(long line, String error) {
+            return new ImportRow(line, null, null, null, null, error);
+        }
+    }
+
+    /** Running totals of one import */
+    private static final class ImportRun {
+
+        private long totalRows;
+
+        private long imported;
+
+        private long failed;
+
+        private final List<RowError> errors = new ArrayList<>();
+
+        private final Map<String, Integer> typeIds = new HashMap<>();
+
+        void reject(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, message));
+            }
+        }
+    }
+
+    /**
+     * Lazily parses one row per call, null at end of input
+     */
+    private interface RowReader {
+        ImportRow next() throws IOException;
+    }
+
+    /**
+     * Header row with email, assessment_type and optional completed_at; every other
+     * column is a question id holding that question's answer (option index or label).
+     * Fields may be quoted; quoted fields cannot span lines.
+     */
+    private static final class CsvRowReader implements RowReader {
+
+        private final BufferedReader input;
+
+        private String[] header;
+
+        private long line;
+
+        CsvRowReader(BufferedReader input) {
+            this.input = input;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String text;
+            while ((text = input.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                List<String> fields = parseLine(text);
+                if (header == null) {
+                    header = parseHeader(fields);
+                    continue;
+                }
+                if (fields == null) {
+                    return ImportRow.invalid(line, "Dòng CSV không hợp lệ (dấu ngoặc kép không đóng)");
+                }
+                if (fields.size() > header.length) {
+                    return ImportRow.invalid(line, "Dòng có nhiều cột hơn tiêu đề");
+                }
+
+                String email = null;
+                String assessmentType = null;
+                String completedAt = null;
+                Map<String, String> answers = new LinkedHashMap<>();
+                for (int i = 0; i < fields.size(); i++) {
+                    String value = fields.get(i).trim();
+                    switch (header[i].toLowerCase(Locale.ROOT)) {
+                        case "email" -> email = value;
+                        case "assessment_type", "assessmenttype" -> assessmentType = value;
+                        case "completed_at", "completedat" -> completedAt = value;
+                        default -> answers.put(header[i], value);
+                    }
+                }
+                return toRow(line, email, assessmentType, completedAt, answers);
+            }
+            return null;
+        }
+
+        private static String[] parseHeader(List<String> fields) {
+            if (fields == null) {
+                throw new IllegalArgumentException("Tiêu đề CSV không hợp lệ");
+            }
+            String[] columns = fields.stream().map(String::trim).toArray(String[]::new);
+            List<String> names = fields.stream().map(field -> field.trim().toLowerCase(Locale.ROOT)).toList();
+            if (!names.contains("email") || !names.contains("assessment_type") && !names.contains("assessmenttype")) {
+                throw new IllegalArgumentException("Tiêu đề CSV phải có cột email và assessment_type");
+            }
+            return columns;
+        }
+
+        /** RFC 4180 fields of a single line, or null when a quote is left open */
+        private static List<String> parseLine(String text) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c != '\r') {
+                    field.append(c);
+                }
+            }
+            if (quoted) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    /**
+     * One JSON object per line: {"email", "assessmentType", "completedAt", "answers": {questionId: answer}}
+     */
+    private final class NdjsonRowReader implements RowReader {
+
+        private final BufferedReader input;
+
+        private long line;
+
+        NdjsonRowReader(BufferedReader input) {
+            this.input = input;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String text;
+            while ((text = input.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(text);
+                } catch (JsonProcessingException e) {
+                    return ImportRow.invalid(line, "JSON không hợp lệ: " + e.getOriginalMessage());
+                }
+                if (!node.isObject() || !node.path("answers").isObject()) {
+                    return ImportRow.invalid(line, "Thiếu đối tượng answers");
+                }
+
+                Map<String, String> answers = new LinkedHashMap<>();
+                for (Iterator<Map.Entry<String, JsonNode>> it = node.get("answers").fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> answer = it.next();
+                    answers.put(answer.getKey(), answer.getValue().isNull() ? null : answer.getValue().asText());
+                }
+                return toRow(line, text(node, "email"), text(node, "assessmentType"), text(node, "completedAt"), answers);
+            }
+            return null;
+        }
+
+        private static String text(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+    }
+}
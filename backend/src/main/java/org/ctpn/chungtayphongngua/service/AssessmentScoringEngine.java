@@ -0,0 +1,288 @@
+package org.ctpn.chungtayphongngua.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ctpn.chungtayphongngua.entity.AssessmentType;
+import org.ctpn.chungtayphongngua.repository.AssessmentTypeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scoring engine for ASSIST and CRAFFT
+ * Each AssessmentType's questionsJson and scoringMethod are compiled once into an
+ * immutable ScoringTable (question index -> option index -> weight, plus risk
+ * thresholds) that is shared by every submission of that type.
+ */
+@Component
+public class AssessmentScoringEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssessmentScoringEngine.class);
+
+    /**
+     * Labels accepted from older clients in addition to option indexes and the configured labels,
+     * one list of spellings per option
+     */
+    private static final Map<String, List<List<String>>> LEGACY_OPTION_LABELS = Map.of(
+            "frequency", List.of(List.of("never"), List.of("once or twice"), List.of("monthly"),
+                    List.of("weekly"), List.of("daily")),
+            "yesno", List.of(List.of("no", "không"), List.of("yes", "có")));
+
+    @Autowired
+    private AssessmentTypeRepository assessmentTypeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, ScoringTable> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Compiled table for an assessment type (ASSIST or CRAFFT)
+     * Falls back to the built-in table, without caching it, while the type is not in the database yet
+     */
+    public ScoringTable tableFor(String assessmentType) {
+        ScoringTable table = tables.get(assessmentType);
+        if (table != null) {
+            return table;
+        }
+
+        String ageGroup = "CRAFFT".equals(assessmentType) ? "youth" : "adult";
+        return assessmentTypeRepository.findByTypeNameAndAgeGroup(assessmentType, ageGroup)
+                .map(type -> tables.computeIfAbsent(assessmentType, key -> compile(type)))
+                .orElseGet(() -> defaultTable(assessmentType));
+    }
+
+    /**
+     * Drop compiled tables so the next submission recompiles from the database
+     */
+    public void invalidate() {
+        tables.clear();
+    }
+
+    ScoringTable compile(AssessmentType type) {
+        String typeName = type.getTypeName();
+        boolean binary = isBinary(typeName, type.getScoringMethod());
+
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(type.getQuestionsJson());
+        } catch (JsonProcessingException e) {
+            logger.error("Invalid questions JSON for assessment type {}: {}", typeName, e.getMessage());
+            return defaultTable(typeName);
+        }
+
+        // Option scales by question type, e.g. "frequency" -> [labels...]
+        Map<String, int[]> scaleWeights = new HashMap<>();
+        Map<String, Map<String, Integer>> scaleAliases = new HashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = root.path("options").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> scale = it.next();
+            List<String> labels = new ArrayList<>();
+            scale.getValue().forEach(label -> labels.add(label.asText()));
+            scaleWeights.put(scale.getKey(), optionWeights(labels.size(), binary));
+            scaleAliases.put(scale.getKey(), optionAliases(scale.getKey(), labels));
+        }
+
+        String defaultScale = binary ? "yesno" : "frequency";
+        scaleWeights.putIfAbsent(defaultScale, optionWeights(LEGACY_OPTION_LABELS.get(defaultScale).size(), binary));
+        scaleAliases.putIfAbsent(defaultScale, optionAliases(defaultScale, List.of()));
+
+        JsonNode questions = root.path("questions");
+        int questionCount = questions.size();
+        Map<String, Integer> questionIndex = new HashMap<>();
+        int[][] weights = new int[questionCount + 1][];
+        List<Map<String, Integer>> aliases = new ArrayList<>(questionCount + 1);
+        for (int i = 0; i < questionCount; i++) {
+            JsonNode question = questions.get(i);
+            String scale = question.path("type").asText(defaultScale);
+            if (!scaleWeights.containsKey(scale)) {
+                scale = defaultScale;
+            }
+            questionIndex.put(question.path("id").asText(), i);
+            weights[i] = scaleWeights.get(scale);
+            aliases.add(scaleAliases.get(scale));
+        }
+        // Last row scores answers to question ids the catalog does not know
+        weights[questionCount] = scaleWeights.get(defaultScale);
+        aliases.add(scaleAliases.get(defaultScale));
+
+        int[] thresholdMax;
+        String[] levels;
+        JsonNode scoring = root.path("scoring");
+        if (scoring.isObject() && scoring.size() > 0) {
+            List<Map.Entry<String, JsonNode>> bands = new ArrayList<>();
+            scoring.fields().forEachRemaining(bands::add);
+            bands.sort((a, b) -> Integer.compare(a.getValue().path("max").asInt(), b.getValue().path("max").asInt()));
+            thresholdMax = new int[bands.size()];
+            levels = new String[bands.size()];
+            for (int i = 0; i < bands.size(); i++) {
+                thresholdMax[i] = bands.get(i).getValue().path("max").asInt();
+                levels[i] = bands.get(i).getKey().toUpperCase(Locale.ROOT);
+            }
+        } else {
+            ScoringTable fallback = defaultTable(typeName);
+            thresholdMax = fallback.thresholdMax;
+            levels = fallback.levels;
+        }
+
+        logger.info("Compiled scoring table for {} ({} questions, {} risk levels).", typeName, questionCount, levels.length);
+        return new ScoringTable(typeName, Map.copyOf(questionIndex), weights, List.copyOf(aliases), thresholdMax, levels);
+    }
+
+    /**
+     * Built-in table with the WHO ASSIST / CeASAR CRAFFT cut-offs, used when no catalog is available
+     */
+    static ScoringTable defaultTable(String assessmentType) {
+        boolean binary = "CRAFFT".equals(assessmentType);
+        String scale = binary ? "yesno" : "frequency";
+        int[][] weights = {optionWeights(LEGACY_OPTION_LABELS.get(scale).size(), binary)};
+        List<Map<String, Integer>> aliases = List.of(optionAliases(scale, List.of()));
+
+        if (binary) {
+            return new ScoringTable(assessmentType, Map.of(), weights, aliases,
+                    new int[]{1, Integer.MAX_VALUE}, new String[]{"LOW", "HIGH"});
+        }
+        if ("ASSIST".equals(assessmentType)) {
+            return new ScoringTable(assessmentType, Map.of(), weights, aliases,
+                    new int[]{10, 26, Integer.MAX_VALUE}, new String[]{"LOW", "MODERATE", "HIGH"});
+        }
+        return new ScoringTable(assessmentType, Map.of(), weights, aliases,
+                new int[]{Integer.MAX_VALUE}, new String[]{"LOW"});
+    }
+
+    private static boolean isBinary(String typeName, String scoringMethod) {
+        return "CRAFFT".equals(typeName) || (scoringMethod != null && scoringMethod.startsWith("binary"));
+    }
+
+    /**
+     * Option i is worth i points on frequency scales; binary scales score 1 for any "yes" option
+     */
+    private static int[] optionWeights(int optionCount, boolean binary) {
+        int[] weights = new int[optionCount];
+        for (int i = 0; i < optionCount; i++) {
+            weights[i] = binary ? Math.min(i, 1) : i;
+        }
+        return weights;
+    }
+
+    private static Map<String, Integer> optionAliases(String scale, List<String> labels) {
+        Map<String, Integer> aliases = new HashMap<>();
+        List<List<String>> legacy = LEGACY_OPTION_LABELS.getOrDefault(scale, List.of());
+        for (int i = 0; i < legacy.size(); i++) {
+            for (String label : legacy.get(i)) {
+                aliases.put(label, i);
+            }
+        }
+        for (int i = 0; i < labels.size(); i++) {
+            aliases.put(labels.get(i).toLowerCase(Locale.ROOT), i);
+        }
+        return Map.copyOf(aliases);
+    }
+
+    /**
+     * Immutable, array-indexed scoring table for one assessment type
+     */
+    public static final class ScoringTable {
+
+        private final String assessmentType;
+
+        private final Map<String, Integer> questionIndex;
+
+        /** weights[question][option]; the last row is used for unknown question ids */
+        private final int[][] weights;
+
+        private final List<Map<String, Integer>> optionAliases;
+
+        /** Inclusive upper bound of each risk level, ascending */
+        private final int[] thresholdMax;
+
+        private final String[] levels;
+
+        ScoringTable(String assessmentType, Map<String, Integer> questionIndex, int[][] weights,
+                     List<Map<String, Integer>> optionAliases, int[] thresholdMax, String[] levels) {
+            this.assessmentType = assessmentType;
+            this.questionIndex = questionIndex;
+            this.weights = weights;
+            this.optionAliases = optionAliases;
+            this.thresholdMax = thresholdMax;
+            this.levels = levels;
+        }
+
+        public String getAssessmentType() {
+            return assessmentType;
+        }
+
+        /**
+         * Total score of a submission (question id -> answer)
+         */
+        public int score(Map<String, String> answers) {
+            int total = 0;
+            for (Map.Entry<String, String> answer : answers.entrySet()) {
+                total += answerWeight(answer.getKey(), answer.getValue());
+            }
+            return total;
+        }
+
+        /**
+         * Weight of a single answer: an option index or option label; anything else scores 0
+         */
+        public int answerWeight(String questionId, String answer) {
+            if (answer == null) {
+                return 0;
+            }
+            int question = questionIndex.getOrDefault(questionId, weights.length - 1);
+            int[] row = weights[question];
+
+            int option = parseOptionIndex(answer);
+            if (option < 0) {
+                option = optionAliases.get(question).getOrDefault(answer.trim().toLowerCase(Locale.ROOT), -1);
+            }
+            return option >= 0 && option < row.length ? row[option] : 0;
+        }
+
+        /**
+         * Risk level for a total score; scores above the last band take the highest level
+         */
+        public String riskLevel(int score) {
+            for (int i = 0; i < thresholdMax.length; i++) {
+                if (score <= thresholdMax[i]) {
+                    return levels[i];
+                }
+            }
+            return levels[levels.length - 1];
+        }
+
+        /** Non-negative option index, or -1 when the answer is not a short decimal number */
+        private static int parseOptionIndex(String answer) {
+            int length = answer.length();
+            if (length == 0 || length > 3) {
+                return -1;
+            }
+            int value = 0;
+            for (int i = 0; i < length; i++) {
+                char c = answer.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "ScoringTable{" + assessmentType + ", questions=" + questionIndex.size() +
+                    ", levels=" + Arrays.toString(levels) + '}';
+        }
+    }
+}
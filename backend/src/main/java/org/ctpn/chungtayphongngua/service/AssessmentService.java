@@ -1,9 +1,13 @@
 package org.ctpn.chungtayphongngua.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.ctpn.chungtayphongngua.dto.request.AssessmentRequest;
+import org.ctpn.chungtayphongngua.dto.response.AssessmentHistoryItemDTO;
 import org.ctpn.chungtayphongngua.dto.response.AssessmentResponse;
+import org.ctpn.chungtayphongngua.dto.response.AssessmentTrendDTO;
+import org.ctpn.chungtayphongngua.dto.response.CourseRecommendationDTO;
 import org.ctpn.chungtayphongngua.entity.Assessment;
-import org.ctpn.chungtayphongngua.entity.AssessmentResult;
 import org.ctpn.chungtayphongngua.entity.AssessmentType;
 import org.ctpn.chungtayphongngua.entity.User;
 import org.ctpn.chungtayphongngua.repository.AssessmentRepository;
@@ -11,6 +15,8 @@ import org.ctpn.chungtayphongngua.repository.AssessmentResultRepository;
 import org.ctpn.chungtayphongngua.repository.AssessmentTypeRepository;
 import org.ctpn.chungtayphongngua.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +35,9 @@ import java.util.*;
 @Transactional
 public class AssessmentService {
     
+    /** Number of most recent assessments the risk trend covers */
+    static final int TREND_WINDOW = 10;
+    
     @Autowired
     private AssessmentRepository assessmentRepository;
     
@@ -41,9 +50,19 @@ public class AssessmentService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private AssessmentScoringEngine assessmentScoringEngine;
+
+    @Autowired
+    private CourseRecommendationService courseRecommendationService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     /**
      * Get assessment questions based on age
      * ASSIST for 18+, CRAFFT for <18 per Document specifications
+     * Loads from the database; requests are served from AssessmentCatalog
      */
     public Map<String, Object> getAssessmentQuestions(int age) {
         String assessmentType = age >= 18 ? "ASSIST" : "CRAFFT";
@@ -71,7 +90,14 @@ public class AssessmentService {
      * Implements Document FR-006 risk calculation
      */
     public AssessmentResponse processAssessment(AssessmentRequest request) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        return processAssessment(request, SecurityContextHolder.getContext().getAuthentication().getName());
+    }
+    
+    /**
+     * Process an assessment submission on behalf of the given user
+     * (used by the async submission queue, which has no security context)
+     */
+    public AssessmentResponse processAssessment(AssessmentRequest request, String username) {
         User user = userRepository.findByEmail(username)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng"));
         
@@ -84,17 +110,23 @@ public class AssessmentService {
         
         // Calculate score based on assessment type
         String assessmentType = request.getAssessmentType();
-        int totalScore = calculateScore(request.getAnswers(), assessmentType);
-        String riskLevel = calculateRiskLevel(totalScore, assessmentType);
+        AssessmentScoringEngine.ScoringTable scoringTable = assessmentScoringEngine.tableFor(assessmentType);
+        int totalScore = calculateScore(request.getAnswers(), assessmentType, scoringTable);
+        String riskLevel = calculateRiskLevel(totalScore, assessmentType, scoringTable);
         
         assessment.setTotalScore(totalScore);
         assessment.setRiskLevel(riskLevel);
         assessment.setRecommendations(generateRecommendations(riskLevel, assessmentType));
         
+        // Answers are stored packed on the assessment row itself
+        String packedAnswers = packAnswers(request.getAnswers(), scoringTable);
+        assessment.setAnswers(packedAnswers);
+        
         assessment = assessmentRepository.save(assessment);
         
-        // Save individual answers
-        saveAssessmentResults(assessment, request.getAnswers());
+        // Keep the analytics summaries current in the same transaction
+        assessmentResultRepository.incrementAnswerDistribution(assessment.getTypeId(), packedAnswers);
+        assessmentRepository.incrementRiskLevelCount(assessment.getTypeId(), riskLevel);
         
         return new AssessmentResponse(
                 assessment.getAssessmentId(),
@@ -108,73 +140,24 @@ public class AssessmentService {
     
     /**
      * Calculate total score based on assessment type
-     * ASSIST: Sum scoring, CRAFFT: Binary scoring per Document
+     * ASSIST: Sum scoring, CRAFFT: Binary scoring per Document, both from the compiled scoring table
      */
-    private int calculateScore(Map<String, String> answers, String assessmentType) {
-        if ("ASSIST".equals(assessmentType)) {
-            return calculateAssistScore(answers);
-        } else if ("CRAFFT".equals(assessmentType)) {
-            return calculateCrafftScore(answers);
+    private int calculateScore(Map<String, String> answers, String assessmentType,
+                               AssessmentScoringEngine.ScoringTable scoringTable) {
+        if ("ASSIST".equals(assessmentType) || "CRAFFT".equals(assessmentType)) {
+            return scoringTable.score(answers);
         }
         return 0;
     }
     
-    /**
-     * ASSIST scoring algorithm per WHO standards
-     * Each substance category scored 0-39, total max 312
-     */
-    private int calculateAssistScore(Map<String, String> answers) {
-        int totalScore = 0;
-        
-        // ASSIST scoring logic based on WHO guidelines
-        for (Map.Entry<String, String> answer : answers.entrySet()) {
-            String questionId = answer.getKey();
-            String answerValue = answer.getValue();
-            
-            try {
-                int score = Integer.parseInt(answerValue);
-                totalScore += score;
-            } catch (NumberFormatException e) {
-                // Handle non-numeric answers
-                totalScore += mapAnswerToScore(answerValue);
-            }
-        }
-        
-        return totalScore;
-    }
-    
-    /**
-     * CRAFFT scoring algorithm per CeASAR standards
-     * Binary scoring: 0-1 = Low risk, 2+ = High risk
-     */
-    private int calculateCrafftScore(Map<String, String> answers) {
-        int totalScore = 0;
-        
-        for (Map.Entry<String, String> answer : answers.entrySet()) {
-            String answerValue = answer.getValue().toLowerCase();
-            
-            // CRAFFT binary scoring: "yes" = 1 point, "no" = 0 points
-            if ("yes".equals(answerValue) || "có".equals(answerValue) || "1".equals(answerValue)) {
-                totalScore += 1;
-            }
-        }
-        
-        return totalScore;
-    }
-    
     /**
      * Calculate risk level based on score and assessment type
-     * Per Document FR-006 specifications
+     * Per Document FR-006 specifications; thresholds come from the type's scoring bands
      */
-    private String calculateRiskLevel(int score, String assessmentType) {
-        if ("ASSIST".equals(assessmentType)) {
-            // ASSIST risk levels per WHO standards
-            if (score <= 10) return "LOW";
-            else if (score <= 26) return "MODERATE";
-            else return "HIGH";
-        } else if ("CRAFFT".equals(assessmentType)) {
-            // CRAFFT binary risk classification
-            return (score <= 1) ? "LOW" : "HIGH";
+    private String calculateRiskLevel(int score, String assessmentType,
+                                      AssessmentScoringEngine.ScoringTable scoringTable) {
+        if ("ASSIST".equals(assessmentType) || "CRAFFT".equals(assessmentType)) {
+            return scoringTable.riskLevel(score);
         }
         return "LOW";
     }
@@ -182,7 +165,7 @@ public class AssessmentService {
     /**
      * Generate personalized recommendations based on risk level
      */
-    private String generateRecommendations(String riskLevel, String assessmentType) {
+    static String generateRecommendations(String riskLevel, String assessmentType) {
         Map<String, String> recommendations = new HashMap<>();
         
         if ("ASSIST".equals(assessmentType)) {
@@ -198,53 +181,90 @@ public class AssessmentService {
     }
     
     /**
-     * Save assessment results for audit and analysis
+     * Pack answers for audit and analysis into the assessments.answers JSONB column
+     * as {"<questionId>": ["<answerValue>", <scoreWeight>]}, one row per assessment
      */
-    private void saveAssessmentResults(Assessment assessment, Map<String, String> answers) {
+    String packAnswers(Map<String, String> answers, AssessmentScoringEngine.ScoringTable scoringTable) {
+        ObjectNode packed = objectMapper.createObjectNode();
         for (Map.Entry<String, String> answer : answers.entrySet()) {
-            AssessmentResult result = new AssessmentResult();
-            result.setAssessment(assessment);
-            result.setQuestionId(answer.getKey());
-            result.setAnswerValue(answer.getValue());
-            result.setScoreWeight(mapAnswerToScore(answer.getValue()));
-            
-            assessmentResultRepository.save(result);
+            packed.putArray(answer.getKey())
+                    .add(answer.getValue())
+                    .add(scoringTable.answerWeight(answer.getKey(), answer.getValue()));
         }
+        return packed.toString();
     }
     
     /**
-     * Map answer values to numeric scores
+     * Recompute the answer distribution and risk level summaries from raw assessments
+     * (used to verify or repair the incrementally maintained counters, and at startup)
+     * Both summary tables are locked for the whole transaction, so concurrent submissions
+     * wait and then apply their increment on top of the rebuilt counts
      */
-    private int mapAnswerToScore(String answer) {
-        Map<String, Integer> scoreMapping = new HashMap<>();
-        scoreMapping.put("never", 0);
-        scoreMapping.put("once or twice", 1);
-        scoreMapping.put("monthly", 2);
-        scoreMapping.put("weekly", 3);
-        scoreMapping.put("daily", 4);
-        scoreMapping.put("no", 0);
-        scoreMapping.put("yes", 1);
+    public Map<String, Object> rebuildAnswerStatistics() {
+        assessmentRepository.lockSummaryTables();
+        assessmentResultRepository.clearAnswerDistribution();
+        int answerRows = assessmentResultRepository.rebuildAnswerDistribution();
+        assessmentRepository.clearRiskLevelCounts();
+        int riskRows = assessmentRepository.rebuildRiskLevelCounts();
         
-        return scoreMapping.getOrDefault(answer.toLowerCase(), 0);
+        Map<String, Object> response = new HashMap<>();
+        response.put("answerDistributionRows", answerRows);
+        response.put("riskLevelRows", riskRows);
+        return response;
     }
     
     /**
      * Get user's assessment history
+     * Paged projection (id, type, score, risk level, date) plus the risk trend over the
+     * last TREND_WINDOW assessments; the trend reuses the first page when it covers the window
      */
-    public Map<String, Object> getUserAssessmentHistory() {
+    public Map<String, Object> getUserAssessmentHistory(int page, int size) {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng"));
         
-        List<Assessment> assessments = assessmentRepository.findByUserOrderByCompletedAtDesc(user);
+        Page<AssessmentHistoryItemDTO> history = assessmentRepository.findHistoryByUserEmail(
+                username, PageRequest.of(page, size));
+        
+        List<AssessmentHistoryItemDTO> recent;
+        if (page == 0 && (size >= TREND_WINDOW || !history.hasNext())) {
+            recent = history.getContent().subList(0, Math.min(TREND_WINDOW, history.getNumberOfElements()));
+        } else {
+            recent = assessmentRepository.findRecentHistoryByUserEmail(username, PageRequest.of(0, TREND_WINDOW));
+        }
         
         Map<String, Object> response = new HashMap<>();
-        response.put("totalAssessments", assessments.size());
-        response.put("assessments", assessments);
+        response.put("totalAssessments", history.getTotalElements());
+        response.put("assessments", history.getContent());
+        response.put("page", history.getNumber());
+        response.put("size", history.getSize());
+        response.put("totalPages", history.getTotalPages());
+        response.put("trend", calculateTrend(recent));
         
         return response;
     }
     
+    /**
+     * Risk trend from history rows ordered newest first
+     */
+    static AssessmentTrendDTO calculateTrend(List<AssessmentHistoryItemDTO> newestFirst) {
+        if (newestFirst.isEmpty()) {
+            return AssessmentTrendDTO.empty();
+        }
+        
+        List<Integer> scores = new ArrayList<>(newestFirst.size());
+        long sum = 0;
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            int score = newestFirst.get(i).totalScore() != null ? newestFirst.get(i).totalScore() : 0;
+            scores.add(score);
+            sum += score;
+        }
+        
+        int latest = scores.get(scores.size() - 1);
+        Integer delta = scores.size() > 1 ? latest - scores.get(scores.size() - 2) : null;
+        double movingAverage = Math.round(sum * 100.0 / scores.size()) / 100.0;
+        
+        return new AssessmentTrendDTO(scores, latest, newestFirst.get(0).riskLevel(), delta, movingAverage);
+    }
+    
     /**
      * Get course recommendations based on latest assessment
      */
@@ -260,7 +280,12 @@ public class AssessmentService {
         }
         
         String riskLevel = latestAssessment.get().getRiskLevel();
-        List<Map<String, Object>> recommendations = generateCourseRecommendations(riskLevel);
+        List<Map<String, Object>> recommendations = new ArrayList<>();
+        List<CourseRecommendationDTO> courses = courseRecommendationService.getRecommendationsForUser(
+                riskLevel, user.getUserId(), user.getDateOfBirth());
+        for (int i = 0; i < courses.size(); i++) {
+            recommendations.add(createCourseRecommendation(courses.get(i), i < 2 ? "high" : "medium"));
+        }
         
         Map<String, Object> response = new HashMap<>();
         response.put("riskLevel", riskLevel);
@@ -270,32 +295,14 @@ public class AssessmentService {
         return response;
     }
     
-    /**
-     * Generate course recommendations based on risk level
-     */
-    private List<Map<String, Object>> generateCourseRecommendations(String riskLevel) {
-        List<Map<String, Object>> courses = new ArrayList<>();
-        
-        if ("LOW".equals(riskLevel)) {
-            courses.add(createCourseRecommendation("Giáo dục phòng ngừa cơ bản", "Khóa học nền tảng về tác hại của ma túy", "beginner"));
-            courses.add(createCourseRecommendation("Kỹ năng sống lành mạnh", "Phát triển lối sống tích cực", "beginner"));
-        } else if ("MODERATE".equals(riskLevel)) {
-            courses.add(createCourseRecommendation("Can thiệp sớm", "Chương trình hỗ trợ giảm rủi ro", "intermediate"));
-            courses.add(createCourseRecommendation("Tư vấn nhóm", "Chia sẻ kinh nghiệm và hỗ trợ lẫn nhau", "intermediate"));
-        } else if ("HIGH".equals(riskLevel)) {
-            courses.add(createCourseRecommendation("Điều trị chuyên sâu", "Chương trình điều trị toàn diện", "advanced"));
-            courses.add(createCourseRecommendation("Hỗ trợ gia đình", "Tư vấn cho gia đình người nghiện", "advanced"));
-        }
-        
-        return courses;
-    }
-    
-    private Map<String, Object> createCourseRecommendation(String title, String description, String level) {
+    private Map<String, Object> createCourseRecommendation(CourseRecommendationDTO source, String priority) {
         Map<String, Object> course = new HashMap<>();
-        course.put("title", title);
-        course.put("description", description);
-        course.put("level", level);
-        course.put("priority", "high");
+        course.put("courseId", source.courseId());
+        course.put("title", source.title());
+        course.put("description", source.description());
+        course.put("category", source.category());
+        course.put("level", source.level());
+        course.put("priority", priority);
         return course;
     }
     
@@ -0,0 +1,202 @@
+package org.ctpn.chungtayphongngua.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.ctpn.chungtayphongngua.dto.request.AssessmentRequest;
+import org.ctpn.chungtayphongngua.dto.response.AssessmentResponse;
+import org.ctpn.chungtayphongngua.dto.response.AssessmentSubmissionStatusDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accept-then-process assessment submissions
+ * Validated submissions are placed on a bounded queue and answered with a submission id;
+ * a single background writer drains them in batches, processing each batch in one
+ * transaction (falling back to one transaction per submission if the batch fails).
+ * Clients may send an idempotency key so retries map to the original submission.
+ * Submission state and idempotency keys are held in memory only.
+ */
+@Service
+public class AssessmentSubmissionQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssessmentSubmissionQueue.class);
+
+    @Autowired
+    private AssessmentService assessmentService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<PendingSubmission> queue;
+
+    private final Cache<String, AssessmentSubmissionStatusDTO> statuses;
+
+    /** "<user email>|<idempotency key>" -> submission id */
+    private final Cache<String, String> idempotencyKeys;
+
+    private final int batchSize;
+
+    private volatile boolean running = true;
+
+    private Thread writer;
+
+    public AssessmentSubmissionQueue(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                     @Value("${assessment.submissions.queue-capacity:5000}") int queueCapacity,
+                                     @Value("${assessment.submissions.batch-size:50}") int batchSize,
+                                     @Value("${assessment.submissions.retention-minutes:60}") long retentionMinutes) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(retentionMinutes))
+                .maximumSize(200_000)
+                .build();
+        this.idempotencyKeys = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(retentionMinutes))
+                .maximumSize(200_000)
+                .build();
+
+        Gauge.builder("assessment.submissions.queue.size", queue, BlockingQueue::size)
+                .description("Assessment submissions accepted but not yet processed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer = new Thread(this::drainLoop, "assessment-submission-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Enqueue a submission for the given user
+     * Returns the existing submission when the idempotency key was already used,
+     * or null when the queue is full
+     */
+    public AssessmentSubmissionStatusDTO submit(AssessmentRequest request, String userEmail, String idempotencyKey) {
+        if (!running) {
+            return null;
+        }
+
+        String submissionId = UUID.randomUUID().toString();
+        AssessmentSubmissionStatusDTO status = AssessmentSubmissionStatusDTO.queued(submissionId, userEmail);
+        // The status is stored before the key is published, so a concurrent retry that
+        // finds the key always finds a status too
+        statuses.put(submissionId, status);
+
+        String scopedKey = null;
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            scopedKey = userEmail + "|" + idempotencyKey;
+            String existingId = idempotencyKeys.asMap().putIfAbsent(scopedKey, submissionId);
+            if (existingId != null) {
+                statuses.invalidate(submissionId);
+                AssessmentSubmissionStatusDTO existing = statuses.getIfPresent(existingId);
+                // Status already expired with its key; report it as in flight rather than enqueue a copy
+                return existing != null ? existing : AssessmentSubmissionStatusDTO.queued(existingId, userEmail);
+            }
+        }
+
+        if (!queue.offer(new PendingSubmission(submissionId, request, userEmail))) {
+            statuses.invalidate(submissionId);
+            if (scopedKey != null) {
+                idempotencyKeys.asMap().remove(scopedKey, submissionId);
+            }
+            return null;
+        }
+        return status;
+    }
+
+    /**
+     * Current state of a submission if it belongs to the user, otherwise null
+     */
+    public AssessmentSubmissionStatusDTO getStatus(String submissionId, String userEmail) {
+        AssessmentSubmissionStatusDTO status = statuses.getIfPresent(submissionId);
+        return status != null && status.owner().equals(userEmail) ? status : null;
+    }
+
+    private void drainLoop() {
+        List<PendingSubmission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingSubmission first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<PendingSubmission> batch) {
+        try {
+            List<AssessmentResponse> results = transactionTemplate.execute(tx -> {
+                List<AssessmentResponse> processed = new ArrayList<>(batch.size());
+                for (PendingSubmission submission : batch) {
+                    processed.add(assessmentService.processAssessment(submission.request(), submission.userEmail()));
+                }
+                return processed;
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), results.get(i));
+            }
+        } catch (RuntimeException batchFailure) {
+            // One bad submission rolled back the batch; isolate it
+            for (PendingSubmission submission : batch) {
+                try {
+                    complete(submission, transactionTemplate.execute(tx ->
+                            assessmentService.processAssessment(submission.request(), submission.userEmail())));
+                } catch (RuntimeException e) {
+                    logger.warn("Assessment submission {} failed: {}", submission.submissionId(), e.getMessage());
+                    AssessmentSubmissionStatusDTO status = statuses.getIfPresent(submission.submissionId());
+                    if (status != null) {
+                        statuses.put(submission.submissionId(), status.failed(e.getMessage()));
+                    }
+                }
+            }
+        }
+    }
+
+    private void complete(PendingSubmission submission, AssessmentResponse result) {
+        AssessmentSubmissionStatusDTO status = statuses.getIfPresent(submission.submissionId());
+        if (status != null) {
+            statuses.put(submission.submissionId(), status.completed(result));
+        }
+    }
+
+    /**
+     * Stop accepting work and process what is already queued
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    private record PendingSubmission(String submissionId, AssessmentRequest request, String userEmail) {
+    }
+}
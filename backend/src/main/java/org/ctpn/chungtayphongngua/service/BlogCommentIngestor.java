@@ -0,0 +1,263 @@
+package org.ctpn.chungtayphongngua.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.ctpn.chungtayphongngua.entity.User;
+import org.ctpn.chungtayphongngua.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous comment ingestion
+ * Submissions are rate limited per user (token bucket), placed on a bounded queue
+ * and written by a single background writer with one multi-row INSERT per batch,
+ * so bursts on viral posts no longer take a pooled connection per comment.
+ * When the queue is full the caller is told to back off instead of blocking.
+ */
+@Service
+public class BlogCommentIngestor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlogCommentIngestor.class);
+
+    // Authors are resolved by email, the post must be published and not deleted, and
+    // replies must belong to an approved, not deleted comment on the same post;
+    // rows failing any check are skipped
+    private static final String INSERT_QUERY = "INSERT INTO ctpn_content.blog_comments " +
+            "(post_id, user_id, parent_id, content, status, created_at) " +
+            "SELECT v.post_id, u.user_id, v.parent_id, v.content, 'pending', v.created_at " +
+            "FROM unnest(?::bigint[], ?::text[], ?::bigint[], ?::text[], ?::timestamp[]) " +
+            "AS v(post_id, email, parent_id, content, created_at) " +
+            "JOIN ctpn_core.users u ON u.email = v.email " +
+            "JOIN ctpn_content.blog_posts bp ON bp.post_id = v.post_id " +
+            "AND bp.status = 'published' AND bp.is_deleted = false " +
+            "WHERE v.parent_id IS NULL OR EXISTS (SELECT 1 FROM ctpn_content.blog_comments p " +
+            "WHERE p.comment_id = v.parent_id AND p.post_id = v.post_id " +
+            "AND p.status = 'approved' AND p.is_deleted = false)";
+
+    public enum Admission {
+        QUEUED,
+        RATE_LIMITED,
+        QUEUE_FULL
+    }
+
+    /**
+     * Outcome of a submission; userName and createdAt are set when the comment was queued,
+     * and createdAt is the value the row is stored with
+     */
+    public record Receipt(Admission admission, String userName, Timestamp createdAt) {
+
+        static Receipt rejected(Admission admission) {
+            return new Receipt(admission, null, null);
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final BlockingQueue<PendingComment> queue;
+
+    private final Cache<String, Commenter> commenters;
+
+    private final int batchSize;
+
+    private final double bucketCapacity;
+
+    private final double refillPerSecond;
+
+    private volatile boolean running = true;
+
+    private Thread writer;
+
+    public BlogCommentIngestor(MeterRegistry meterRegistry,
+                               @Value("${blog.comments.queue-capacity:10000}") int queueCapacity,
+                               @Value("${blog.comments.batch-size:200}") int batchSize,
+                               @Value("${blog.comments.rate.capacity:5}") int bucketCapacity,
+                               @Value("${blog.comments.rate.refill-per-minute:6}") int refillPerMinute) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.bucketCapacity = bucketCapacity;
+        this.refillPerSecond = refillPerMinute / 60.0;
+        this.commenters = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .maximumSize(100_000)
+                .build();
+
+        Gauge.builder("blog.comments.queue.size", queue, BlockingQueue::size)
+                .description("Comments accepted but not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer = new Thread(this::drainLoop, "blog-comment-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Accept a comment for asynchronous insertion
+     */
+    public Receipt submit(Long postId, Long parentId, String content, String userEmail) {
+        if (!running) {
+            return Receipt.rejected(Admission.QUEUE_FULL);
+        }
+        Commenter commenter = commenters.get(userEmail, this::loadCommenter);
+        if (!commenter.bucket().tryConsume(System.nanoTime())) {
+            return Receipt.rejected(Admission.RATE_LIMITED);
+        }
+        Timestamp createdAt = new Timestamp(System.currentTimeMillis());
+        if (!queue.offer(new PendingComment(postId, parentId, content, userEmail, createdAt))) {
+            return Receipt.rejected(Admission.QUEUE_FULL);
+        }
+        return new Receipt(Admission.QUEUED, commenter.userName(), createdAt);
+    }
+
+    /** Per-user state kept while the user is active: display name and rate limit */
+    private Commenter loadCommenter(String userEmail) {
+        String userName = userRepository.findByEmail(userEmail).map(User::getFullName).orElse(null);
+        return new Commenter(userName, new TokenBucket(bucketCapacity, refillPerSecond, System.nanoTime()));
+    }
+
+    private void drainLoop() {
+        List<PendingComment> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingComment first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingComment> batch) {
+        try {
+            insert(batch);
+        } catch (SQLException batchFailure) {
+            // One bad row failed the statement; isolate it so the other comments are kept
+            logger.warn("Comment batch of {} failed ({}), retrying row by row", batch.size(), batchFailure.getMessage());
+            for (PendingComment comment : batch) {
+                try {
+                    insert(List.of(comment));
+                } catch (SQLException e) {
+                    logger.error("Dropped queued comment on post {} by {}: {}",
+                            comment.postId(), comment.userEmail(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void insert(List<PendingComment> batch) throws SQLException {
+        int size = batch.size();
+        Long[] postIds = new Long[size];
+        String[] emails = new String[size];
+        Long[] parentIds = new Long[size];
+        String[] contents = new String[size];
+        Timestamp[] createdAts = new Timestamp[size];
+        for (int i = 0; i < size; i++) {
+            PendingComment comment = batch.get(i);
+            postIds[i] = comment.postId();
+            emails[i] = comment.userEmail();
+            parentIds[i] = comment.parentId();
+            contents[i] = comment.content();
+            createdAts[i] = comment.createdAt();
+        }
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_QUERY)) {
+            stmt.setArray(1, conn.createArrayOf("bigint", postIds));
+            stmt.setArray(2, conn.createArrayOf("text", emails));
+            stmt.setArray(3, conn.createArrayOf("bigint", parentIds));
+            stmt.setArray(4, conn.createArrayOf("text", contents));
+            stmt.setArray(5, conn.createArrayOf("timestamp", createdAts));
+            int inserted = stmt.executeUpdate();
+            if (inserted < size) {
+                logger.warn("Skipped {} of {} queued comments (unknown user, unpublished post, or missing or unapproved parent)",
+                        size - inserted, size);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting work and flush what is already queued
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private record PendingComment(Long postId, Long parentId, String content, String userEmail, Timestamp createdAt) {
+    }
+
+    private record Commenter(String userName, TokenBucket bucket) {
+    }
+
+    /**
+     * Classic token bucket: up to capacity tokens, refilled continuously
+     * Times are System.nanoTime() values passed in by the caller; a rejected attempt
+     * leaves the bucket unchanged, so retries do not accumulate rounding error
+     */
+    static final class TokenBucket {
+
+        /** Tolerance for floating-point refill, far below any real refill step */
+        private static final double EPSILON = 1e-9;
+
+        private final double capacity;
+
+        private final double refillPerNano;
+
+        private double tokens;
+
+        private long lastRefill;
+
+        TokenBucket(double capacity, double refillPerSecond, long now) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerSecond / 1_000_000_000.0;
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        synchronized boolean tryConsume(long now) {
+            double available = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            if (available < 1 - EPSILON) {
+                return false;
+            }
+            tokens = Math.max(available - 1, 0);
+            lastRefill = now;
+            return true;
+        }
+    }
+}
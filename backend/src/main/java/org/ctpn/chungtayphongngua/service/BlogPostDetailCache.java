@@ -0,0 +1,108 @@
+package org.ctpn.chungtayphongngua.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Byte-weighted cache of serialized, gzipped blog post detail responses.
+ * Entries are keyed by post id and carry the version (updated_at) and ETag they were
+ * built from; the ETag also covers the persisted view and like counters, and callers
+ * serve an entry only while it matches the post's current stamp, so a hit skips the
+ * content query and serialization but never outlives a change to the post.
+ * Writes that change a post (approve, reject, bulk moderation) also invalidate it.
+ * Hit ratio is exported as cache.* metrics (cache=blogPostDetail) and the retained
+ * size as blog.post.detail.cache.bytes.
+ */
+@Component
+public class BlogPostDetailCache {
+
+    private final Cache<Long, Entry> cache;
+
+    private final ObjectMapper objectMapper;
+
+    public BlogPostDetailCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                               @Value("${blog.detail-cache.max-bytes:33554432}") long maxBytes,
+                               @Value("${blog.detail-cache.ttl-minutes:10}") long ttlMinutes) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long postId, Entry entry) -> entry.gzipped().length)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "blogPostDetail");
+        Gauge.builder("blog.post.detail.cache.bytes", cache,
+                        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+                .description("Gzipped bytes retained by the blog post detail cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cached response for the post, or null
+     */
+    public Entry get(Long postId) {
+        return cache.getIfPresent(postId);
+    }
+
+    /**
+     * Serialize and gzip the response body, cache it with its version and ETag and return the entry
+     */
+    public Entry put(Long postId, long version, String etag, Object responseBody) {
+        Entry entry = new Entry(version, etag, gzip(serialize(responseBody)));
+        cache.put(postId, entry);
+        return entry;
+    }
+
+    public void invalidate(Long postId) {
+        cache.invalidate(postId);
+    }
+
+    /**
+     * Inflate a cached payload for clients that do not accept gzip
+     */
+    public static byte[] gunzip(byte[] gzipped) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] serialize(Object responseBody) {
+        try {
+            return objectMapper.writeValueAsBytes(responseBody);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể tuần tự hóa bài viết", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] raw) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(raw.length / 2 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public record Entry(long version, String etag, byte[] gzipped) {
+    }
+}
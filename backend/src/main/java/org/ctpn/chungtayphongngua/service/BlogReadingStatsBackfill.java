@@ -0,0 +1,63 @@
+package org.ctpn.chungtayphongngua.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Backfills word_count and read_time for blog posts created before the
+ * columns existed (or inserted outside BlogService), in small batches so
+ * the startup run never holds long locks on blog_posts.
+ */
+@Component
+public class BlogReadingStatsBackfill implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlogReadingStatsBackfill.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String BACKFILL_QUERY = "UPDATE ctpn_content.blog_posts " +
+            "SET word_count = " + BlogService.WORD_COUNT_SQL + ", " +
+            "read_time = " + BlogService.READ_TIME_SQL + " " +
+            "WHERE post_id IN (SELECT post_id FROM ctpn_content.blog_posts " +
+            "WHERE word_count IS NULL OR read_time IS NULL LIMIT ?)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Override
+    public void run(String... args) {
+        backfill();
+    }
+
+    /**
+     * Fill missing reading stats, returning the number of rows updated
+     */
+    public int backfill() {
+        int total = 0;
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(BACKFILL_QUERY)) {
+            stmt.setInt(1, BATCH_SIZE);
+            int updated;
+            do {
+                updated = stmt.executeUpdate();
+                total += updated;
+            } while (updated == BATCH_SIZE);
+        } catch (SQLException e) {
+            logger.error("Failed to backfill blog reading stats: {}", e.getMessage());
+        }
+
+        if (total > 0) {
+            logger.info("Backfilled reading stats for {} blog posts.", total);
+        }
+        return total;
+    }
+}
@@ -1,8 +1,20 @@
 package org.ctpn.chungtayphongngua.service;
 
+import org.ctpn.chungtayphongngua.dto.response.BlogCategoryDTO;
+import org.ctpn.chungtayphongngua.dto.response.BlogCommentDTO;
+import org.ctpn.chungtayphongngua.dto.response.BlogCommentNodeDTO;
+import org.ctpn.chungtayphongngua.dto.response.BlogModerationResultDTO;
+import org.ctpn.chungtayphongngua.dto.response.BlogPostDetailDTO;
+import org.ctpn.chungtayphongngua.dto.response.BlogPostSummaryDTO;
+import org.ctpn.chungtayphongngua.dto.response.ContentVersion;
+import org.ctpn.chungtayphongngua.dto.response.PostVersion;
+import org.ctpn.chungtayphongngua.dto.response.CursorPage;
+import org.ctpn.chungtayphongngua.entity.BlogPost;
 import org.ctpn.chungtayphongngua.entity.User;
 import org.ctpn.chungtayphongngua.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -11,10 +23,12 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Blog Service - Complete Blog Management Implementation
@@ -27,221 +41,491 @@ import java.util.*;
 @Transactional
 public class BlogService {
 
+    /** Word count of bp.content computed in SQL, used for approve and backfill */
+    static final String WORD_COUNT_SQL = "(SELECT count(*) FROM regexp_matches(coalesce(content, ''), '\\S+', 'g'))";
+
+    /** Read time derived from WORD_COUNT_SQL (approx 200 words per minute, at least 1) */
+    static final String READ_TIME_SQL = "GREATEST(CEIL(" + WORD_COUNT_SQL + " / 200.0)::int, 1)";
+
+    // Optional filters are appended from fixed fragments so every variant has stable
+    // SQL text and can be served from pgjdbc's per-connection statement cache
+
+    private static final String CATEGORY_FILTER = "AND c.name = ? ";
+
+    private static final String PUBLISHED_SUMMARY_SELECT = "SELECT bp.post_id, bp.title, bp.excerpt, bp.featured_image, " +
+            "bp.published_at, bp.view_count, bp.likes_count, bp.read_time, " +
+            "u.full_name as author_name, c.name as category_name " +
+            "FROM ctpn_content.blog_posts bp " +
+            "JOIN ctpn_core.users u ON bp.author_id = u.user_id " +
+            "LEFT JOIN ctpn_content.categories c ON bp.category_id = c.category_id " +
+            "WHERE bp.status = 'published' AND bp.is_deleted = false ";
+
+    private static final String FEED_SEEK = "AND (bp.published_at, bp.post_id) < (?, ?) ";
+
+    private static final String FEED_ORDER = "ORDER BY bp.published_at DESC, bp.post_id DESC ";
+
+    private static final String PUBLISHED_COUNT_SELECT = "SELECT COUNT(*) FROM ctpn_content.blog_posts bp " +
+            "LEFT JOIN ctpn_content.categories c ON bp.category_id = c.category_id " +
+            "WHERE bp.status = 'published' AND bp.is_deleted = false ";
+
+    private static final String SEARCH_SELECT = "WITH q AS (SELECT plainto_tsquery('ctpn_content.vn_unaccent', ?) AS query), " +
+            "ranked AS ( " +
+            "SELECT bp.post_id, bp.title, bp.excerpt, bp.featured_image, bp.published_at, " +
+            "bp.view_count, bp.likes_count, bp.read_time, bp.content, bp.author_id, bp.category_id, " +
+            "ts_rank(bp.search_vector, q.query) AS rank " +
+            "FROM ctpn_content.blog_posts bp, q " +
+            "WHERE bp.search_vector @@ q.query " +
+            "AND bp.status = 'published' AND bp.is_deleted = false ) " +
+            "SELECT r.post_id, r.title, r.excerpt, r.featured_image, r.published_at, " +
+            "r.view_count, r.likes_count, r.read_time, r.rank, " +
+            "ts_headline('ctpn_content.vn_unaccent', coalesce(r.content, ''), q.query, " +
+            "'StartSel=<mark>, StopSel=</mark>, MaxFragments=2, MaxWords=30, MinWords=10') AS snippet, " +
+            "u.full_name as author_name, c.name as category_name " +
+            "FROM ranked r CROSS JOIN q " +
+            "JOIN ctpn_core.users u ON r.author_id = u.user_id " +
+            "LEFT JOIN ctpn_content.categories c ON r.category_id = c.category_id ";
+
+    private static final String SEARCH_SEEK = "WHERE (r.rank, r.post_id) < (?, ?) ";
+
+    private static final String SEARCH_ORDER = "ORDER BY r.rank DESC, r.post_id DESC LIMIT ?";
+
+    private static final String LATEST_QUERY = "SELECT bp.post_id, bp.title, bp.excerpt, bp.featured_image, " +
+            "bp.published_at, bp.read_time, u.full_name as author_name, c.name as category_name " +
+            "FROM ctpn_content.blog_posts bp " +
+            "JOIN ctpn_core.users u ON bp.author_id = u.user_id " +
+            "LEFT JOIN ctpn_content.categories c ON bp.category_id = c.category_id " +
+            "WHERE bp.status = 'published' AND bp.is_deleted = false " +
+            "ORDER BY bp.published_at DESC LIMIT ?";
+
+    private static final String POST_DETAIL_QUERY = "SELECT bp.post_id, bp.title, bp.content, bp.excerpt, bp.featured_image, " +
+            "bp.published_at, bp.view_count, bp.likes_count, bp.read_time, " +
+            "u.full_name as author_name, u.profile_picture_url as author_avatar, c.name as category_name " +
+            "FROM ctpn_content.blog_posts bp " +
+            "JOIN ctpn_core.users u ON bp.author_id = u.user_id " +
+            "LEFT JOIN ctpn_content.categories c ON bp.category_id = c.category_id " +
+            "WHERE bp.post_id = ? AND bp.status = 'published' AND bp.is_deleted = false";
+
+    private static final String POST_VERSION_QUERY = "SELECT updated_at, view_count, likes_count FROM ctpn_content.blog_posts " +
+            "WHERE post_id = ? AND status = 'published' AND is_deleted = false";
+
+    private static final String FEED_VERSION_SELECT = "SELECT MAX(bp.updated_at) AS last_modified, COUNT(*) AS total " +
+            "FROM ctpn_content.blog_posts bp " +
+            "LEFT JOIN ctpn_content.categories c ON bp.category_id = c.category_id " +
+            "WHERE bp.status = 'published' AND bp.is_deleted = false ";
+
+    private static final String INSERT_POST_QUERY = "INSERT INTO ctpn_content.blog_posts " +
+            "(author_id, category_id, title, content, excerpt, featured_image, status, word_count, read_time) " +
+            "VALUES (?, ?, ?, ?, ?, ?, 'draft', ?, ?) RETURNING post_id";
+
+    private static final String MANAGEMENT_SELECT = "SELECT bp.post_id, bp.title, bp.excerpt, bp.status, " +
+            "bp.published_at, bp.view_count, bp.likes_count, bp.read_time, " +
+            "u.full_name as author_name, c.name as category_name, " +
+            "COUNT(*) OVER() AS total_count " +
+            "FROM ctpn_content.blog_posts bp " +
+            "JOIN ctpn_core.users u ON bp.author_id = u.user_id " +
+            "LEFT JOIN ctpn_content.categories c ON bp.category_id = c.category_id " +
+            "WHERE bp.is_deleted = false ";
+
+    private static final String MANAGEMENT_COUNT_SELECT = "SELECT COUNT(*) FROM ctpn_content.blog_posts bp " +
+            "JOIN ctpn_core.users u ON bp.author_id = u.user_id " +
+            "WHERE bp.is_deleted = false ";
+
+    private static final String AUTHOR_FILTER = "AND u.email = ? ";
+
+    private static final String STATUS_FILTER = "AND bp.status = ? ";
+
+    private static final String MANAGEMENT_ORDER = "ORDER BY bp.post_id DESC LIMIT ? OFFSET ?";
+
+    private static final String PUBLISH_SET = "SET status = 'published', published_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP, " +
+            "word_count = COALESCE(word_count, " + WORD_COUNT_SQL + "), " +
+            "read_time = COALESCE(read_time, " + READ_TIME_SQL + ") ";
+
+    private static final String REJECT_SET = "SET status = 'rejected', updated_at = CURRENT_TIMESTAMP ";
+
+    private static final String APPROVE_QUERY = "UPDATE ctpn_content.blog_posts " + PUBLISH_SET +
+            "WHERE post_id = ? AND status = 'draft'";
+
+    private static final String REJECT_QUERY = "UPDATE ctpn_content.blog_posts " + REJECT_SET +
+            "WHERE post_id = ? AND status = 'draft'";
+
+    private static final String MODERATE_APPROVE_QUERY = moderationQuery(PUBLISH_SET);
+
+    private static final String MODERATE_REJECT_QUERY = moderationQuery(REJECT_SET);
+
+    private static final String COMMENTS_QUERY = "SELECT bc.comment_id, bc.content, bc.created_at, " +
+            "u.full_name as user_name, COUNT(*) OVER() AS total_count " +
+            "FROM ctpn_content.blog_comments bc " +
+            "JOIN ctpn_core.users u ON bc.user_id = u.user_id " +
+            "WHERE bc.post_id = ? AND bc.status = 'approved' AND bc.is_deleted = false " +
+            "ORDER BY bc.created_at ASC LIMIT ? OFFSET ?";
+
+    private static final String COMMENTS_COUNT_QUERY = "SELECT COUNT(*) FROM ctpn_content.blog_comments bc " +
+            "WHERE bc.post_id = ? AND bc.status = 'approved' AND bc.is_deleted = false";
+
+    private static final String THREAD_ROOTS_SELECT = "WITH RECURSIVE roots AS ( " +
+            "SELECT bc.comment_id, ROW_NUMBER() OVER (ORDER BY bc.created_at, bc.comment_id) AS rn " +
+            "FROM ctpn_content.blog_comments bc " +
+            "WHERE bc.post_id = ? AND bc.parent_id IS NULL " +
+            "AND bc.status = 'approved' AND bc.is_deleted = false ";
+
+    private static final String THREAD_SEEK = "AND (bc.created_at, bc.comment_id) > (?, ?) ";
+
+    private static final String THREAD_TREE = "ORDER BY bc.created_at, bc.comment_id LIMIT ? ), " +
+            "tree AS ( " +
+            "SELECT bc.comment_id, bc.parent_id, bc.user_id, bc.content, bc.created_at, 0 AS depth " +
+            "FROM ctpn_content.blog_comments bc JOIN roots r ON bc.comment_id = r.comment_id " +
+            "WHERE r.rn <= ? " +
+            "UNION ALL " +
+            "SELECT c.comment_id, c.parent_id, c.user_id, c.content, c.created_at, t.depth + 1 " +
+            "FROM ctpn_content.blog_comments c JOIN tree t ON c.parent_id = t.comment_id " +
+            "WHERE t.depth < ? AND c.status = 'approved' AND c.is_deleted = false ) " +
+            "SELECT t.comment_id, t.parent_id, t.content, t.created_at, t.depth, " +
+            "u.full_name AS user_name, u.profile_picture_url AS user_avatar, " +
+            "(SELECT COUNT(*) FROM roots) AS root_count " +
+            "FROM tree t JOIN ctpn_core.users u ON t.user_id = u.user_id " +
+            "ORDER BY t.depth, t.created_at, t.comment_id " +
+            "LIMIT ?";
+
+    private static final String CATEGORIES_QUERY = "SELECT category_id, name, description " +
+            "FROM ctpn_content.categories " +
+            "ORDER BY name";
+
+    private static final String TOGGLE_LIKE_QUERY = "WITH u AS ( " +
+            "    SELECT user_id FROM ctpn_core.users WHERE email = ? " +
+            "), toggled AS ( " +
+            "    INSERT INTO ctpn_content.blog_likes (post_id, user_id, is_deleted) " +
+            "    SELECT ?, u.user_id, false FROM u " +
+            "    ON CONFLICT (post_id, user_id) DO UPDATE SET is_deleted = NOT blog_likes.is_deleted " +
+            "    RETURNING is_deleted " +
+            ") " +
+            "UPDATE ctpn_content.blog_posts bp " +
+            "SET likes_count = GREATEST(bp.likes_count + CASE WHEN t.is_deleted THEN -1 ELSE 1 END, 0) " +
+            "FROM toggled t " +
+            "WHERE bp.post_id = ? " +
+            "RETURNING bp.likes_count, NOT t.is_deleted AS liked";
+
     @Autowired
-    private DataSource dataSource;
+    private JdbcQueryRunner queryRunner;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private BlogViewCounter blogViewCounter;
+
+    @Autowired
+    private BlogPostDetailCache blogPostDetailCache;
+
     /**
      * Get published blog posts for public access
      * Supports pagination and category filtering
      */
-    public Page<Map<String, Object>> getPublishedBlogPosts(Pageable pageable, String category) {
-        List<Map<String, Object>> blogPosts = new ArrayList<>();
-        long totalElements = 0;
-
-        try (Connection conn = dataSource.getConnection()) {
-            // Build query with optional category filter
-            StringBuilder queryBuilder = new StringBuilder();
-            queryBuilder.append("SELECT bp.post_id, bp.title, bp.excerpt, bp.featured_image, ")
-                    .append("bp.published_at, bp.view_count, bp.likes_count, ")
-                    .append("u.full_name as author_name, c.name as category_name ")
-                    .append("FROM ctpn_content.blog_posts bp ")
-                    .append("JOIN ctpn_core.users u ON bp.author_id = u.user_id ")
-                    .append("LEFT JOIN ctpn_content.categories c ON bp.category_id = c.category_id ")
-                    .append("WHERE bp.status = 'published' AND bp.is_deleted = false ");
-
-            if (category != null && !category.isEmpty()) {
-                queryBuilder.append("AND c.name = ? ");
-            }
-
-            queryBuilder.append("ORDER BY bp.published_at DESC ")
-                    .append("LIMIT ? OFFSET ?");
-
-            PreparedStatement stmt = conn.prepareStatement(queryBuilder.toString());
-            int paramIndex = 1;
-
-            if (category != null && !category.isEmpty()) {
-                stmt.setString(paramIndex++, category);
-            }
-
-            stmt.setInt(paramIndex++, pageable.getPageSize());
-            stmt.setInt(paramIndex, pageable.getPageNumber() * pageable.getPageSize());
-
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Map<String, Object> post = new HashMap<>();
-                post.put("postId", rs.getLong("post_id"));
-                post.put("title", rs.getString("title"));
-                post.put("excerpt", rs.getString("excerpt"));
-                post.put("featuredImage", rs.getString("featured_image"));
-                post.put("publishedAt", rs.getTimestamp("published_at"));
-                post.put("viewsCount", rs.getInt("view_count"));
-                post.put("likesCount", rs.getInt("likes_count"));
-                post.put("authorName", rs.getString("author_name"));
-                post.put("categoryName", rs.getString("category_name"));
-
-                blogPosts.add(post);
-            }
+    public Page<BlogPostSummaryDTO> getPublishedBlogPosts(Pageable pageable, String category) {
+        boolean hasCategory = category != null && !category.isEmpty();
+        String filter = hasCategory ? CATEGORY_FILTER : "";
+
+        try {
+            List<BlogPostSummaryDTO> blogPosts = queryRunner.queryForList(
+                    PUBLISHED_SUMMARY_SELECT + filter + FEED_ORDER + "LIMIT ? OFFSET ?",
+                    stmt -> {
+                        int paramIndex = 1;
+                        if (hasCategory) {
+                            stmt.setString(paramIndex++, category);
+                        }
+                        stmt.setInt(paramIndex++, pageable.getPageSize());
+                        stmt.setInt(paramIndex, pageable.getPageNumber() * pageable.getPageSize());
+                    },
+                    this::mapPublishedPostSummary);
 
             // Get total count for pagination
-            StringBuilder countQuery = new StringBuilder();
-            countQuery.append("SELECT COUNT(*) FROM ctpn_content.blog_posts bp ")
-                    .append("LEFT JOIN ctpn_content.categories c ON bp.category_id = c.category_id ")
-                    .append("WHERE bp.status = 'published' AND bp.is_deleted = false ");
+            long totalElements = queryRunner.queryForObject(
+                    PUBLISHED_COUNT_SELECT + filter,
+                    stmt -> {
+                        if (hasCategory) {
+                            stmt.setString(1, category);
+                        }
+                    },
+                    rs -> rs.getLong(1));
 
-            if (category != null && !category.isEmpty()) {
-                countQuery.append("AND c.name = ?");
-            }
+            return new PageImpl<>(blogPosts, pageable, totalElements);
 
-            PreparedStatement countStmt = conn.prepareStatement(countQuery.toString());
-            if (category != null && !category.isEmpty()) {
-                countStmt.setString(1, category);
-            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Lỗi khi lấy danh sách blog: " + e.getMessage(), e);
+        }
+    }
 
-            ResultSet countRs = countStmt.executeQuery();
-            if (countRs.next()) {
-                totalElements = countRs.getLong(1);
-            }
+    /**
+     * Get published blog posts by keyset (seek) pagination
+     * Cursor is the (published_at, post_id) of the last post on the previous page;
+     * no COUNT query is run, the next cursor is null on the last page
+     */
+    public CursorPage<BlogPostSummaryDTO> getPublishedBlogPostsByCursor(String cursor, int size, String category) {
+        boolean hasCursor = cursor != null && !cursor.isEmpty();
+        boolean hasCategory = category != null && !category.isEmpty();
+
+        Timestamp cursorPublishedAt = null;
+        long cursorPostId = 0;
+        if (hasCursor) {
+            Cursor<Timestamp> decoded = decodeCursor(cursor, key -> Timestamp.valueOf(LocalDateTime.parse(key)));
+            cursorPublishedAt = decoded.sortKey();
+            cursorPostId = decoded.id();
+        }
+        Timestamp seekPublishedAt = cursorPublishedAt;
+        long seekPostId = cursorPostId;
+
+        // Fetch one extra row to know whether another page exists
+        String query = PUBLISHED_SUMMARY_SELECT + (hasCursor ? FEED_SEEK : "") +
+                (hasCategory ? CATEGORY_FILTER : "") + FEED_ORDER + "LIMIT ?";
+
+        try {
+            return queryRunner.query(query,
+                    stmt -> {
+                        int paramIndex = 1;
+                        if (hasCursor) {
+                            stmt.setTimestamp(paramIndex++, seekPublishedAt);
+                            stmt.setLong(paramIndex++, seekPostId);
+                        }
+                        if (hasCategory) {
+                            stmt.setString(paramIndex++, category);
+                        }
+                        stmt.setInt(paramIndex, size + 1);
+                    },
+                    rs -> {
+                        List<BlogPostSummaryDTO> blogPosts = new ArrayList<>();
+                        String nextCursor = null;
+                        Timestamp lastPublishedAt = null;
+                        long lastPostId = 0;
+                        while (rs.next()) {
+                            if (blogPosts.size() == size) {
+                                nextCursor = encodeCursor(lastPublishedAt.toLocalDateTime().toString(), lastPostId);
+                                break;
+                            }
+                            lastPublishedAt = rs.getTimestamp("published_at");
+                            lastPostId = rs.getLong("post_id");
+                            blogPosts.add(mapPublishedPostSummary(rs));
+                        }
+                        return new CursorPage<>(blogPosts, size, nextCursor);
+                    });
 
         } catch (SQLException e) {
             throw new RuntimeException("Lỗi khi lấy danh sách blog: " + e.getMessage(), e);
         }
+    }
 
-        return new PageImpl<>(blogPosts, pageable, totalElements);
+    /**
+     * Full-text search over published posts (title, excerpt, content)
+     * Ranked by ts_rank with highlighted snippets; keyset-paginated on (rank, post_id)
+     */
+    public CursorPage<BlogPostSummaryDTO> searchBlogPosts(String keyword, String cursor, int size) {
+        boolean hasCursor = cursor != null && !cursor.isEmpty();
+
+        float cursorRank = 0;
+        long cursorPostId = 0;
+        if (hasCursor) {
+            Cursor<Float> decoded = decodeCursor(cursor, Float::parseFloat);
+            cursorRank = decoded.sortKey();
+            cursorPostId = decoded.id();
+        }
+        float seekRank = cursorRank;
+        long seekPostId = cursorPostId;
+
+        try {
+            return queryRunner.query(SEARCH_SELECT + (hasCursor ? SEARCH_SEEK : "") + SEARCH_ORDER,
+                    stmt -> {
+                        int paramIndex = 1;
+                        stmt.setString(paramIndex++, keyword);
+                        if (hasCursor) {
+                            stmt.setFloat(paramIndex++, seekRank);
+                            stmt.setLong(paramIndex++, seekPostId);
+                        }
+                        // Fetch one extra row to know whether another page exists
+                        stmt.setInt(paramIndex, size + 1);
+                    },
+                    rs -> {
+                        List<BlogPostSummaryDTO> blogPosts = new ArrayList<>();
+                        String nextCursor = null;
+                        float lastRank = 0;
+                        long lastPostId = 0;
+                        while (rs.next()) {
+                            if (blogPosts.size() == size) {
+                                nextCursor = encodeCursor(Float.toString(lastRank), lastPostId);
+                                break;
+                            }
+                            lastRank = rs.getFloat("rank");
+                            lastPostId = rs.getLong("post_id");
+
+                            blogPosts.add(mapPublishedPostSummary(rs).withSearchMatch(rs.getString("snippet"), lastRank));
+                        }
+                        return new CursorPage<>(blogPosts, size, nextCursor);
+                    });
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Lỗi khi tìm kiếm blog: " + e.getMessage(), e);
+        }
     }
 
     /**
      * Get latest blog posts for homepage (FR-001 requirement)
+     * Cached; evicted whenever a post is created, approved or rejected
      */
-    public List<Map<String, Object>> getLatestBlogPosts(int limit) {
-        List<Map<String, Object>> latestPosts = new ArrayList<>();
-
-        try (Connection conn = dataSource.getConnection()) {
-            String query = "SELECT bp.post_id, bp.title, bp.excerpt, bp.featured_image, " +
-                    "bp.published_at, u.full_name as author_name, c.name as category_name " +
-                    "FROM ctpn_content.blog_posts bp " +
-                    "JOIN ctpn_core.users u ON bp.author_id = u.user_id " +
-                    "LEFT JOIN ctpn_content.categories c ON bp.category_id = c.category_id " +
-                    "WHERE bp.status = 'published' AND bp.is_deleted = false " +
-                    "ORDER BY bp.published_at DESC LIMIT ?";
-
-            PreparedStatement stmt = conn.prepareStatement(query);
-            stmt.setInt(1, limit);
-
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Map<String, Object> post = new HashMap<>();
-                post.put("postId", rs.getLong("post_id"));
-                post.put("title", rs.getString("title"));
-                post.put("excerpt", rs.getString("excerpt"));
-                post.put("featuredImage", rs.getString("featured_image"));
-                post.put("publishedAt", rs.getTimestamp("published_at"));
-                post.put("authorName", rs.getString("author_name"));
-                post.put("categoryName", rs.getString("category_name"));
-
-                latestPosts.add(post);
-            }
+    @Cacheable(cacheNames = "blogLatest", key = "#limit")
+    public List<BlogPostSummaryDTO> getLatestBlogPosts(int limit) {
+        try {
+            return queryRunner.queryForList(LATEST_QUERY,
+                    stmt -> stmt.setInt(1, limit),
+                    rs -> new BlogPostSummaryDTO(
+                            rs.getLong("post_id"),
+                            rs.getString("title"),
+                            rs.getString("excerpt"),
+                            rs.getString("featured_image"),
+                            null,
+                            rs.getTimestamp("published_at"),
+                            null,
+                            null,
+                            rs.getObject("read_time", Integer.class),
+                            rs.getString("author_name"),
+                            rs.getString("category_name"),
+                            null,
+                            null));
 
         } catch (SQLException e) {
             throw new RuntimeException("Lỗi khi lấy blog mới nhất: " + e.getMessage(), e);
         }
-
-        return latestPosts;
     }
 
     /**
      * Get blog post by ID with view count increment
+     * The returned view count includes the view being recorded
      */
-    public Map<String, Object> getBlogPostById(Long postId, boolean incrementViews) {
-        Map<String, Object> blogPost = new HashMap<>();
-
-        try (Connection conn = dataSource.getConnection()) {
-            String query = "SELECT bp.post_id, bp.title, bp.content, bp.excerpt, bp.featured_image, " +
-                    "bp.published_at, bp.view_count, bp.likes_count, " +
-                    "u.full_name as author_name, u.profile_picture_url as author_avatar, c.name as category_name " +
-                    "FROM ctpn_content.blog_posts bp " +
-                    "JOIN ctpn_core.users u ON bp.author_id = u.user_id " +
-                    "LEFT JOIN ctpn_content.categories c ON bp.category_id = c.category_id " +
-                    "WHERE bp.post_id = ? AND bp.status = 'published' AND bp.is_deleted = false";
-
-            PreparedStatement stmt = conn.prepareStatement(query);
-            stmt.setLong(1, postId);
-
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                blogPost.put("postId", rs.getLong("post_id"));
-                blogPost.put("title", rs.getString("title"));
-                blogPost.put("content", rs.getString("content"));
-                blogPost.put("excerpt", rs.getString("excerpt"));
-                blogPost.put("featuredImage", rs.getString("featured_image"));
-                blogPost.put("publishedAt", rs.getTimestamp("published_at"));
-                blogPost.put("viewsCount", rs.getInt("view_count"));
-                blogPost.put("likesCount", rs.getInt("likes_count"));
-                blogPost.put("authorName", rs.getString("author_name"));
-                blogPost.put("authorAvatar", rs.getString("author_avatar"));
-                blogPost.put("categoryName", rs.getString("category_name"));
-
-                // Calculate read time (approx 200 words per minute)
-                String content = rs.getString("content");
-                int wordCount = content != null ? content.split("\\s+").length : 0;
-                int readTime = (int) Math.ceil(wordCount / 200.0);
-                blogPost.put("readTime", readTime > 0 ? readTime : 1);
-
-                // Increment view count if requested
-                if (incrementViews) {
-                    String updateQuery = "UPDATE ctpn_content.blog_posts " +
-                            "SET view_count = view_count + 1 " +
-                            "WHERE post_id = ?";
-                    PreparedStatement updateStmt = conn.prepareStatement(updateQuery);
-                    updateStmt.setLong(1, postId);
-                    updateStmt.executeUpdate();
-
-                    // Update the returned count
-                    blogPost.put("viewsCount", rs.getInt("view_count") + 1);
-                }
-            } else {
-                throw new RuntimeException("Không tìm thấy bài viết");
-            }
+    public BlogPostDetailDTO getBlogPostById(Long postId, boolean incrementViews) {
+        BlogPostDetailDTO post;
+        try {
+            post = queryRunner.queryForObject(POST_DETAIL_QUERY,
+                    stmt -> stmt.setLong(1, postId),
+                    rs -> {
+                        String content = rs.getString("content");
+
+                        // Read time is precomputed on create/approve; fall back only for rows not yet backfilled
+                        int readTime = rs.getInt("read_time");
+                        if (rs.wasNull()) {
+                            readTime = BlogPost.readTimeMinutes(BlogPost.countWords(content));
+                        }
+
+                        return new BlogPostDetailDTO(
+                                rs.getLong("post_id"),
+                                rs.getString("title"),
+                                content,
+                                rs.getString("excerpt"),
+                                rs.getString("featured_image"),
+                                rs.getTimestamp("published_at"),
+                                rs.getInt("view_count") + blogViewCounter.pending(postId) + (incrementViews ? 1 : 0),
+                                rs.getInt("likes_count"),
+                                readTime,
+                                rs.getString("author_name"),
+                                rs.getString("author_avatar"),
+                                rs.getString("category_name"));
+                    });
 
         } catch (SQLException e) {
             throw new RuntimeException("Lỗi khi lấy nội dung blog: " + e.getMessage(), e);
         }
 
-        return blogPost;
+        if (post == null) {
+            throw new RuntimeException("Không tìm thấy bài viết");
+        }
+
+        // Increment view count if requested (buffered, flushed in batches by BlogViewCounter)
+        if (incrementViews) {
+            blogViewCounter.increment(postId);
+        }
+
+        return post;
     }
 
     /**
-     * Create new blog post (Staff+ only)
+     * Version stamp of a published post for conditional GET, or null if it is not published
+     * Reads only updated_at and the persisted counters, so an unchanged post can be answered
+     * with 304 (or from the detail cache) without loading content
      */
-    public Map<String, Object> createBlogPost(Map<String, Object> blogPostData, String userEmail) {
-        Map<String, Object> createdPost = new HashMap<>();
+    public PostVersion getPublishedPostVersion(Long postId) {
+        try {
+            return queryRunner.queryForObject(POST_VERSION_QUERY,
+                    stmt -> stmt.setLong(1, postId),
+                    rs -> {
+                        Timestamp updatedAt = rs.getTimestamp("updated_at");
+                        return new PostVersion(updatedAt != null ? updatedAt.getTime() : 0,
+                                rs.getLong("view_count"), rs.getInt("likes_count"));
+                    });
 
-        try (Connection conn = dataSource.getConnection()) {
-            // Get user ID
-            User author = userRepository.findByEmail(userEmail)
-                    .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng"));
+        } catch (SQLException e) {
+            throw new RuntimeException("Lỗi khi lấy nội dung blog: " + e.getMessage(), e);
+        }
+    }
 
-            String query = "INSERT INTO ctpn_content.blog_posts " +
-                    "(author_id, category_id, title, content, excerpt, featured_image, status) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, 'draft') RETURNING post_id";
+    /**
+     * Version stamp of the published feed (newest updated_at and post count), optionally per category
+     * Cached per category and evicted with blogLatest by every write that can change the feed,
+     * so the aggregate only runs after a change (or when the entry expires)
+     */
+    @Cacheable(cacheNames = "blogFeedVersion", key = "#category == null ? '' : #category")
+    public ContentVersion getPublishedFeedVersion(String category) {
+        boolean hasCategory = category != null && !category.isEmpty();
+
+        try {
+            return queryRunner.queryForObject(FEED_VERSION_SELECT + (hasCategory ? CATEGORY_FILTER : ""),
+                    stmt -> {
+                        if (hasCategory) {
+                            stmt.setString(1, category);
+                        }
+                    },
+                    rs -> {
+                        Timestamp lastModified = rs.getTimestamp("last_modified");
+                        return new ContentVersion(lastModified != null ? lastModified.getTime() : 0, rs.getLong("total"));
+                    });
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Lỗi khi lấy danh sách blog: " + e.getMessage(), e);
+        }
+    }
 
-            PreparedStatement stmt = conn.prepareStatement(query);
-            stmt.setLong(1, author.getUserId());
-            stmt.setObject(2, blogPostData.get("categoryId"));
-            stmt.setString(3, (String) blogPostData.get("title"));
-            stmt.setString(4, (String) blogPostData.get("content"));
-            stmt.setString(5, (String) blogPostData.get("excerpt"));
-            stmt.setString(6, (String) blogPostData.get("featuredImage"));
+    /**
+     * Count a view without loading the post (used when the client copy is still fresh)
+     */
+    public void recordView(Long postId) {
+        blogViewCounter.increment(postId);
+    }
 
-            ResultSet rs = stmt.executeQuery();
+    /**
+     * Create new blog post (Staff+ only)
+     */
+    @CacheEvict(cacheNames = {"blogLatest", "blogFeedVersion"}, allEntries = true)
+    public Map<String, Object> createBlogPost(Map<String, Object> blogPostData, String userEmail) {
+        Map<String, Object> createdPost = new HashMap<>();
 
-            if (rs.next()) {
-                createdPost.put("postId", rs.getLong("post_id"));
+        // Get user ID
+        User author = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng"));
+
+        // Precompute reading stats once so reads never tokenize the body
+        String content = (String) blogPostData.get("content");
+        int wordCount = BlogPost.countWords(content);
+
+        try {
+            Long postId = queryRunner.queryForObject(INSERT_POST_QUERY,
+                    stmt -> {
+                        stmt.setLong(1, author.getUserId());
+                        stmt.setObject(2, blogPostData.get("categoryId"));
+                        stmt.setString(3, (String) blogPostData.get("title"));
+                        stmt.setString(4, content);
+                        stmt.setString(5, (String) blogPostData.get("excerpt"));
+                        stmt.setString(6, (String) blogPostData.get("featuredImage"));
+                        stmt.setInt(7, wordCount);
+                        stmt.setInt(8, BlogPost.readTimeMinutes(wordCount));
+                    },
+                    rs -> rs.getLong("post_id"));
+
+            if (postId != null) {
+                createdPost.put("postId", postId);
                 createdPost.put("title", blogPostData.get("title"));
                 createdPost.put("status", "draft");
                 createdPost.put("createdAt", LocalDateTime.now());
@@ -258,370 +542,418 @@ public class BlogService {
 
     /**
      * Get blog posts for management dashboard
+     * Total count comes from COUNT(*) OVER() on the same statement; a page past the
+     * end returns no rows, so only then is the total read with a separate COUNT
      */
-    public Page<Map<String, Object>> getBlogPostsForManagement(Pageable pageable, String status, String userEmail) {
-        List<Map<String, Object>> blogPosts = new ArrayList<>();
-        long totalElements = 0;
-
-        try (Connection conn = dataSource.getConnection()) {
-            // Check if user is Manager+ (can see all posts) or Staff (can see only own
-            // posts)
-            boolean isManagerOrAdmin = SecurityContextHolder.getContext().getAuthentication()
-                    .getAuthorities().contains(new SimpleGrantedAuthority("ROLE_MANAGER")) ||
-                    SecurityContextHolder.getContext().getAuthentication()
-                            .getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN"));
-
-            StringBuilder queryBuilder = new StringBuilder();
-            queryBuilder.append("SELECT bp.post_id, bp.title, bp.excerpt, bp.status, ")
-                    .append("bp.published_at, bp.view_count, bp.likes_count, ")
-                    .append("u.full_name as author_name, c.name as category_name ")
-                    .append("FROM ctpn_content.blog_posts bp ")
-                    .append("JOIN ctpn_core.users u ON bp.author_id = u.user_id ")
-                    .append("LEFT JOIN ctpn_content.categories c ON bp.category_id = c.category_id ")
-                    .append("WHERE bp.is_deleted = false ");
-
-            if (!isManagerOrAdmin) {
-                queryBuilder.append("AND u.email = ? ");
-            }
-
-            if (status != null && !status.isEmpty()) {
-                queryBuilder.append("AND bp.status = ? ");
-            }
-
-            queryBuilder.append("ORDER BY bp.post_id DESC LIMIT ? OFFSET ?");
-
-            PreparedStatement stmt = conn.prepareStatement(queryBuilder.toString());
-            int paramIndex = 1;
-
-            if (!isManagerOrAdmin) {
-                stmt.setString(paramIndex++, userEmail);
-            }
-
-            if (status != null && !status.isEmpty()) {
-                stmt.setString(paramIndex++, status);
-            }
-
-            stmt.setInt(paramIndex++, pageable.getPageSize());
-            stmt.setInt(paramIndex, pageable.getPageNumber() * pageable.getPageSize());
-
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Map<String, Object> post = new HashMap<>();
-                post.put("postId", rs.getLong("post_id"));
-                post.put("title", rs.getString("title"));
-                post.put("excerpt", rs.getString("excerpt"));
-                post.put("status", rs.getString("status"));
-                post.put("publishedAt", rs.getTimestamp("published_at"));
-                post.put("viewsCount", rs.getInt("view_count"));
-                post.put("likesCount", rs.getInt("likes_count"));
-                post.put("authorName", rs.getString("author_name"));
-                post.put("categoryName", rs.getString("category_name"));
-
-                blogPosts.add(post);
-            }
-
-            // Get total count
-            StringBuilder countQuery = new StringBuilder();
-            countQuery.append("SELECT COUNT(*) FROM ctpn_content.blog_posts bp ")
-                    .append("JOIN ctpn_core.users u ON bp.author_id = u.user_id ")
-                    .append("WHERE bp.is_deleted = false ");
-
-            if (!isManagerOrAdmin) {
-                countQuery.append("AND u.email = ? ");
+    public Page<BlogPostSummaryDTO> getBlogPostsForManagement(Pageable pageable, String status, String userEmail) {
+        // Check if user is Manager+ (can see all posts) or Staff (can see only own
+        // posts)
+        boolean isManagerOrAdmin = SecurityContextHolder.getContext().getAuthentication()
+                .getAuthorities().contains(new SimpleGrantedAuthority("ROLE_MANAGER")) ||
+                SecurityContextHolder.getContext().getAuthentication()
+                        .getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        boolean hasStatus = status != null && !status.isEmpty();
+
+        String filter = (isManagerOrAdmin ? "" : AUTHOR_FILTER) + (hasStatus ? STATUS_FILTER : "");
+
+        try {
+            Page<BlogPostSummaryDTO> page = queryRunner.query(MANAGEMENT_SELECT + filter + MANAGEMENT_ORDER,
+                    stmt -> {
+                        int paramIndex = 1;
+                        if (!isManagerOrAdmin) {
+                            stmt.setString(paramIndex++, userEmail);
+                        }
+                        if (hasStatus) {
+                            stmt.setString(paramIndex++, status);
+                        }
+                        stmt.setInt(paramIndex++, pageable.getPageSize());
+                        stmt.setInt(paramIndex, pageable.getPageNumber() * pageable.getPageSize());
+                    },
+                    rs -> {
+                        List<BlogPostSummaryDTO> blogPosts = new ArrayList<>();
+                        long totalElements = 0;
+                        while (rs.next()) {
+                            totalElements = rs.getLong("total_count");
+                            blogPosts.add(new BlogPostSummaryDTO(
+                                    rs.getLong("post_id"),
+                                    rs.getString("title"),
+                                    rs.getString("excerpt"),
+                                    null,
+                                    rs.getString("status"),
+                                    rs.getTimestamp("published_at"),
+                                    (long) rs.getInt("view_count"),
+                                    rs.getInt("likes_count"),
+                                    rs.getObject("read_time", Integer.class),
+                                    rs.getString("author_name"),
+                                    rs.getString("category_name"),
+                                    null,
+                                    null));
+                        }
+                        return new PageImpl<>(blogPosts, pageable, totalElements);
+                    });
+            if (!page.isEmpty() || pageable.getPageNumber() == 0) {
+                return page;
             }
 
-            if (status != null && !status.isEmpty()) {
-                countQuery.append("AND bp.status = ? ");
-            }
-
-            PreparedStatement countStmt = conn.prepareStatement(countQuery.toString());
-            paramIndex = 1;
-
-            if (!isManagerOrAdmin) {
-                countStmt.setString(paramIndex++, userEmail);
-            }
-
-            if (status != null && !status.isEmpty()) {
-                countStmt.setString(paramIndex++, status);
-            }
-
-            ResultSet countRs = countStmt.executeQuery();
-            if (countRs.next()) {
-                totalElements = countRs.getLong(1);
-            }
+            long totalElements = queryRunner.queryForObject(
+                    MANAGEMENT_COUNT_SELECT + filter,
+                    stmt -> {
+                        int paramIndex = 1;
+                        if (!isManagerOrAdmin) {
+                            stmt.setString(paramIndex++, userEmail);
+                        }
+                        if (hasStatus) {
+                            stmt.setString(paramIndex, status);
+                        }
+                    },
+                    rs -> rs.getLong(1));
+            return new PageImpl<>(List.of(), pageable, totalElements);
 
         } catch (SQLException e) {
             throw new RuntimeException("Lỗi khi lấy danh sách bài viết quản lý: " + e.getMessage(), e);
         }
-
-        return new PageImpl<>(blogPosts, pageable, totalElements);
     }
 
     /**
      * Approve blog post (Manager+ only)
      */
+    @CacheEvict(cacheNames = {"blogLatest", "blogFeedVersion"}, allEntries = true)
     public Map<String, Object> approveBlogPost(Long postId, String approverEmail) {
         Map<String, Object> result = new HashMap<>();
 
-        try (Connection conn = dataSource.getConnection()) {
-            String query = "UPDATE ctpn_content.blog_posts " +
-                    "SET status = 'published', published_at = CURRENT_TIMESTAMP " +
-                    "WHERE post_id = ? AND status = 'draft'";
-
-            PreparedStatement stmt = conn.prepareStatement(query);
-            stmt.setLong(1, postId);
-
-            int rowsUpdated = stmt.executeUpdate();
-
-            if (rowsUpdated > 0) {
-                result.put("postId", postId);
-                result.put("status", "published");
-                result.put("publishedAt", LocalDateTime.now());
-                result.put("approvedBy", approverEmail);
-            } else {
-                throw new RuntimeException(
-                        "Không thể phê duyệt bài viết. Bài viết có thể đã được xuất bản hoặc không tồn tại.");
-            }
-
+        int rowsUpdated;
+        try {
+            rowsUpdated = queryRunner.update(APPROVE_QUERY, stmt -> stmt.setLong(1, postId));
         } catch (SQLException e) {
             throw new RuntimeException("Lỗi khi phê duyệt bài viết: " + e.getMessage(), e);
         }
 
+        if (rowsUpdated > 0) {
+            blogPostDetailCache.invalidate(postId);
+            result.put("postId", postId);
+            result.put("status", "published");
+            result.put("publishedAt", LocalDateTime.now());
+            result.put("approvedBy", approverEmail);
+        } else {
+            throw new RuntimeException(
+                    "Không thể phê duyệt bài viết. Bài viết có thể đã được xuất bản hoặc không tồn tại.");
+        }
+
         return result;
     }
 
     /**
      * Reject blog post (Manager+ only)
      */
+    @CacheEvict(cacheNames = {"blogLatest", "blogFeedVersion"}, allEntries = true)
     public Map<String, Object> rejectBlogPost(Long postId, String rejectionReason, String rejectorEmail) {
         Map<String, Object> result = new HashMap<>();
 
-        try (Connection conn = dataSource.getConnection()) {
-            String query = "UPDATE ctpn_content.blog_posts " +
-                    "SET status = 'rejected' " +
-                    "WHERE post_id = ? AND status = 'draft'";
-
-            PreparedStatement stmt = conn.prepareStatement(query);
-            stmt.setLong(1, postId);
-
-            int rowsUpdated = stmt.executeUpdate();
-
-            if (rowsUpdated > 0) {
-                result.put("postId", postId);
-                result.put("status", "rejected");
-                result.put("rejectionReason", rejectionReason);
-                result.put("rejectedBy", rejectorEmail);
-                result.put("rejectedAt", LocalDateTime.now());
-            } else {
-                throw new RuntimeException(
-                        "Không thể từ chối bài viết. Bài viết có thể đã được xử lý hoặc không tồn tại.");
-            }
-
+        int rowsUpdated;
+        try {
+            rowsUpdated = queryRunner.update(REJECT_QUERY, stmt -> stmt.setLong(1, postId));
         } catch (SQLException e) {
             throw new RuntimeException("Lỗi khi từ chối bài viết: " + e.getMessage(), e);
         }
 
+        if (rowsUpdated > 0) {
+            blogPostDetailCache.invalidate(postId);
+            result.put("postId", postId);
+            result.put("status", "rejected");
+            result.put("rejectionReason", rejectionReason);
+            result.put("rejectedBy", rejectorEmail);
+            result.put("rejectedAt", LocalDateTime.now());
+        } else {
+            throw new RuntimeException(
+                    "Không thể từ chối bài viết. Bài viết có thể đã được xử lý hoặc không tồn tại.");
+        }
+
         return result;
     }
 
     /**
-     * Add comment to blog post
+     * Approve or reject many blog posts at once (Manager+ only)
+     * Applies the same draft -> published/rejected rule as the single-post endpoints in
+     * one UPDATE ... RETURNING. Posts already in the requested state report "unchanged",
+     * so retrying a request is safe.
      */
-    public Map<String, Object> addComment(Long postId, String content, String userEmail) {
-        Map<String, Object> comment = new HashMap<>();
-
-        try (Connection conn = dataSource.getConnection()) {
-            // Get user ID
-            User user = userRepository.findByEmail(userEmail)
-                    .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng"));
-
-            String query = "INSERT INTO ctpn_content.blog_comments " +
-                    "(post_id, user_id, content, status) " +
-                    "VALUES (?, ?, ?, 'pending') RETURNING comment_id, created_at";
-
-            PreparedStatement stmt = conn.prepareStatement(query);
-            stmt.setLong(1, postId);
-            stmt.setLong(2, user.getUserId());
-            stmt.setString(3, content);
-
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                comment.put("commentId", rs.getLong("comment_id"));
-                comment.put("content", content);
-                comment.put("userName", user.getFullName());
-                comment.put("status", "pending");
-                comment.put("createdAt", rs.getTimestamp("created_at"));
-                comment.put("message", "Bình luận đã được thêm và đang chờ kiểm duyệt");
+    @CacheEvict(cacheNames = {"blogLatest", "blogFeedVersion"}, allEntries = true)
+    public List<BlogModerationResultDTO> moderateBlogPosts(Collection<Long> postIds, String decision) {
+        String targetStatus;
+        String query;
+        if ("approve".equals(decision)) {
+            targetStatus = "published";
+            query = MODERATE_APPROVE_QUERY;
+        } else if ("reject".equals(decision)) {
+            targetStatus = "rejected";
+            query = MODERATE_REJECT_QUERY;
+        } else {
+            throw new RuntimeException("Quyết định không hợp lệ: " + decision);
+        }
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(postIds));
+
+        Map<Long, BlogModerationResultDTO> byId = new HashMap<>();
+        try {
+            for (BlogModerationResultDTO result : queryRunner.queryForList(query,
+                    stmt -> stmt.setArray(1, stmt.getConnection().createArrayOf("bigint", ids.toArray())),
+                    rs -> {
+                        long postId = rs.getLong("post_id");
+                        String previousStatus = rs.getString("previous_status");
+                        if (rs.getBoolean("applied")) {
+                            return new BlogModerationResultDTO(postId, "applied", targetStatus);
+                        } else if (previousStatus == null) {
+                            return new BlogModerationResultDTO(postId, "not_found", null);
+                        } else if (targetStatus.equals(previousStatus)) {
+                            return new BlogModerationResultDTO(postId, "unchanged", previousStatus);
+                        }
+                        return new BlogModerationResultDTO(postId, "invalid_transition", previousStatus);
+                    })) {
+                if ("applied".equals(result.outcome())) {
+                    blogPostDetailCache.invalidate(result.postId());
+                }
+                byId.put(result.postId(), result);
             }
 
         } catch (SQLException e) {
-            throw new RuntimeException("Lỗi khi thêm bình luận: " + e.getMessage(), e);
+            throw new RuntimeException("Lỗi khi kiểm duyệt bài viết: " + e.getMessage(), e);
         }
 
-        return comment;
+        // Report in request order
+        List<BlogModerationResultDTO> results = new ArrayList<>();
+        for (Long postId : ids) {
+            results.add(byId.get(postId));
+        }
+        return results;
     }
 
     /**
      * Get comments for a blog post
+     * Total count comes from COUNT(*) OVER() on the same statement, or from a separate
+     * COUNT when a page past the end returns no rows
      */
-    public Page<Map<String, Object>> getComments(Long postId, Pageable pageable) {
-        List<Map<String, Object>> comments = new ArrayList<>();
-        long totalElements = 0;
-
-        try (Connection conn = dataSource.getConnection()) {
-            String query = "SELECT bc.comment_id, bc.content, bc.created_at, " +
-                    "u.full_name as user_name " +
-                    "FROM ctpn_content.blog_comments bc " +
-                    "JOIN ctpn_core.users u ON bc.user_id = u.user_id " +
-                    "WHERE bc.post_id = ? AND bc.status = 'approved' AND bc.is_deleted = false " +
-                    "ORDER BY bc.created_at ASC LIMIT ? OFFSET ?";
-
-            PreparedStatement stmt = conn.prepareStatement(query);
-            stmt.setLong(1, postId);
-            stmt.setInt(2, pageable.getPageSize());
-            stmt.setInt(3, pageable.getPageNumber() * pageable.getPageSize());
-
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Map<String, Object> comment = new HashMap<>();
-                comment.put("commentId", rs.getLong("comment_id"));
-                comment.put("content", rs.getString("content"));
-                comment.put("userName", rs.getString("user_name"));
-                comment.put("createdAt", rs.getTimestamp("created_at"));
-
-                comments.add(comment);
+    public Page<BlogCommentDTO> getComments(Long postId, Pageable pageable) {
+        try {
+            Page<BlogCommentDTO> page = queryRunner.query(COMMENTS_QUERY,
+                    stmt -> {
+                        stmt.setLong(1, postId);
+                        stmt.setInt(2, pageable.getPageSize());
+                        stmt.setInt(3, pageable.getPageNumber() * pageable.getPageSize());
+                    },
+                    rs -> {
+                        List<BlogCommentDTO> comments = new ArrayList<>();
+                        long totalElements = 0;
+                        while (rs.next()) {
+                            totalElements = rs.getLong("total_count");
+                            comments.add(new BlogCommentDTO(
+                                    rs.getLong("comment_id"),
+                                    rs.getString("content"),
+                                    rs.getString("user_name"),
+                                    rs.getTimestamp("created_at")));
+                        }
+                        return new PageImpl<>(comments, pageable, totalElements);
+                    });
+            if (!page.isEmpty() || pageable.getPageNumber() == 0) {
+                return page;
             }
 
-            // Get total count
-            String countQuery = "SELECT COUNT(*) FROM ctpn_content.blog_comments " +
-                    "WHERE post_id = ? AND status = 'approved' AND is_deleted = false";
-            PreparedStatement countStmt = conn.prepareStatement(countQuery);
-            countStmt.setLong(1, postId);
-
-            ResultSet countRs = countStmt.executeQuery();
-            if (countRs.next()) {
-                totalElements = countRs.getLong(1);
-            }
+            long totalElements = queryRunner.queryForObject(COMMENTS_COUNT_QUERY,
+                    stmt -> stmt.setLong(1, postId),
+                    rs -> rs.getLong(1));
+            return new PageImpl<>(List.of(), pageable, totalElements);
 
         } catch (SQLException e) {
             throw new RuntimeException("Lỗi khi lấy bình luận: " + e.getMessage(), e);
         }
-
-        return new PageImpl<>(comments, pageable, totalElements);
     }
 
     /**
-     * Get blog categories
+     * Get comment threads for a blog post
+     * Loads a keyset page of root comments (created_at, comment_id ascending) and their
+     * replies up to maxDepth levels in one recursive query, with author name and avatar
+     * joined once; at most maxReplies replies are returned per page
      */
-    public List<Map<String, Object>> getBlogCategories() {
-        List<Map<String, Object>> categories = new ArrayList<>();
-
-        try (Connection conn = dataSource.getConnection()) {
-            String query = "SELECT category_id, name, description " +
-                    "FROM ctpn_content.categories " +
-                    "WHERE 1=1 " + // Simplified where clause
-                    "ORDER BY name";
-
-            PreparedStatement stmt = conn.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
+    public CursorPage<BlogCommentNodeDTO> getCommentThreads(Long postId, String cursor, int size, int maxDepth, int maxReplies) {
+        boolean hasCursor = cursor != null && !cursor.isEmpty();
+
+        Timestamp cursorCreatedAt = null;
+        long cursorCommentId = 0;
+        if (hasCursor) {
+            Cursor<Timestamp> decoded = decodeCursor(cursor, key -> Timestamp.valueOf(LocalDateTime.parse(key)));
+            cursorCreatedAt = decoded.sortKey();
+            cursorCommentId = decoded.id();
+        }
+        Timestamp seekCreatedAt = cursorCreatedAt;
+        long seekCommentId = cursorCommentId;
+
+        // Fetch one extra root to know whether another page exists, but only expand the first page
+        String query = THREAD_ROOTS_SELECT + (hasCursor ? THREAD_SEEK : "") + THREAD_TREE;
+
+        try {
+            return queryRunner.query(query,
+                    stmt -> {
+                        int paramIndex = 1;
+                        stmt.setLong(paramIndex++, postId);
+                        if (hasCursor) {
+                            stmt.setTimestamp(paramIndex++, seekCreatedAt);
+                            stmt.setLong(paramIndex++, seekCommentId);
+                        }
+                        stmt.setInt(paramIndex++, size + 1);
+                        stmt.setInt(paramIndex++, size);
+                        stmt.setInt(paramIndex++, maxDepth);
+                        stmt.setInt(paramIndex, size + maxReplies);
+                    },
+                    rs -> {
+                        // Rows arrive breadth-first, so every parent is seen before its replies
+                        List<BlogCommentNodeDTO> roots = new ArrayList<>();
+                        Map<Long, BlogCommentNodeDTO> nodes = new HashMap<>();
+                        long rootCount = 0;
+                        BlogCommentNodeDTO lastRoot = null;
+                        while (rs.next()) {
+                            rootCount = rs.getLong("root_count");
+                            BlogCommentNodeDTO node = new BlogCommentNodeDTO(
+                                    rs.getLong("comment_id"),
+                                    rs.getObject("parent_id", Long.class),
+                                    rs.getString("content"),
+                                    rs.getString("user_name"),
+                                    rs.getString("user_avatar"),
+                                    rs.getTimestamp("created_at"),
+                                    new ArrayList<>());
+                            nodes.put(node.commentId(), node);
+
+                            if (rs.getInt("depth") == 0) {
+                                roots.add(node);
+                                lastRoot = node;
+                            } else {
+                                BlogCommentNodeDTO parent = nodes.get(node.parentId());
+                                if (parent != null) {
+                                    parent.replies().add(node);
+                                }
+                            }
+                        }
+
+                        String nextCursor = null;
+                        if (rootCount > size && lastRoot != null) {
+                            nextCursor = encodeCursor(lastRoot.createdAt().toLocalDateTime().toString(), lastRoot.commentId());
+                        }
+                        return new CursorPage<>(roots, size, nextCursor);
+                    });
 
-            while (rs.next()) {
-                Map<String, Object> category = new HashMap<>();
-                category.put("categoryId", rs.getLong("category_id"));
-                category.put("name", rs.getString("name"));
-                category.put("description", rs.getString("description"));
+        } catch (SQLException e) {
+            throw new RuntimeException("Lỗi khi lấy bình luận: " + e.getMessage(), e);
+        }
+    }
 
-                categories.add(category);
-            }
+    /**
+     * Get blog categories
+     * Cached; categories change rarely and the cache entry expires per spring.cache.caffeine.spec
+     */
+    @Cacheable(cacheNames = "blogCategories", key = "'all'")
+    public List<BlogCategoryDTO> getBlogCategories() {
+        try {
+            return queryRunner.queryForList(CATEGORIES_QUERY, JdbcQueryRunner.NO_PARAMS,
+                    rs -> new BlogCategoryDTO(
+                            rs.getLong("category_id"),
+                            rs.getString("name"),
+                            rs.getString("description")));
 
         } catch (SQLException e) {
             throw new RuntimeException("Lỗi khi lấy danh mục blog: " + e.getMessage(), e);
         }
-
-        return categories;
     }
 
     /**
      * Toggle like for blog post
+     * Flips the like row and adjusts likes_count in a single statement; the
+     * ON CONFLICT row lock serializes concurrent taps by the same user, so the
+     * counter only moves by the like rows that actually changed.
      */
     public Map<String, Object> toggleLike(Long postId, String userEmail) {
-        Map<String, Object> result = new HashMap<>();
-
-        try (Connection conn = dataSource.getConnection()) {
-            // Get user ID
-            User user = userRepository.findByEmail(userEmail)
-                    .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng"));
-
-            // Check if user has already liked this post
-            String checkQuery = "SELECT like_id FROM ctpn_content.blog_likes " +
-                    "WHERE post_id = ? AND user_id = ? AND is_deleted = false";
-
-            PreparedStatement checkStmt = conn.prepareStatement(checkQuery);
-            checkStmt.setLong(1, postId);
-            checkStmt.setLong(2, user.getUserId());
-
-            ResultSet rs = checkStmt.executeQuery();
-
-            if (rs.next()) {
-                // Unlike: soft delete the like
-                String unlikeQuery = "UPDATE ctpn_content.blog_likes " +
-                        "SET is_deleted = true " +
-                        "WHERE post_id = ? AND user_id = ?";
-                PreparedStatement unlikeStmt = conn.prepareStatement(unlikeQuery);
-                unlikeStmt.setLong(1, postId);
-                unlikeStmt.setLong(2, user.getUserId());
-                unlikeStmt.executeUpdate();
-
-                // Decrease like count
-                String decreaseQuery = "UPDATE ctpn_content.blog_posts " +
-                        "SET likes_count = GREATEST(likes_count - 1, 0) " +
-                        "WHERE post_id = ?";
-                PreparedStatement decreaseStmt = conn.prepareStatement(decreaseQuery);
-                decreaseStmt.setLong(1, postId);
-                decreaseStmt.executeUpdate();
-
-                result.put("action", "unliked");
-                result.put("liked", false);
-
-            } else {
-                // Like: insert new like
-                String likeQuery = "INSERT INTO ctpn_content.blog_likes (post_id, user_id) " +
-                        "VALUES (?, ?) " +
-                        "ON CONFLICT (post_id, user_id) DO UPDATE SET is_deleted = false";
-                PreparedStatement likeStmt = conn.prepareStatement(likeQuery);
-                likeStmt.setLong(1, postId);
-                likeStmt.setLong(2, user.getUserId());
-                likeStmt.executeUpdate();
-
-                // Increase like count
-                String increaseQuery = "UPDATE ctpn_content.blog_posts " +
-                        "SET likes_count = likes_count + 1 " +
-                        "WHERE post_id = ?";
-                PreparedStatement increaseStmt = conn.prepareStatement(increaseQuery);
-                increaseStmt.setLong(1, postId);
-                increaseStmt.executeUpdate();
-
-                result.put("action", "liked");
-                result.put("liked", true);
-            }
-
-            // Get updated like count
-            String countQuery = "SELECT likes_count FROM ctpn_content.blog_posts WHERE post_id = ?";
-            PreparedStatement countStmt = conn.prepareStatement(countQuery);
-            countStmt.setLong(1, postId);
-            ResultSet countRs = countStmt.executeQuery();
-
-            if (countRs.next()) {
-                result.put("likesCount", countRs.getInt("likes_count"));
-            }
+        Map<String, Object> result;
+
+        try {
+            result = queryRunner.queryForObject(TOGGLE_LIKE_QUERY,
+                    stmt -> {
+                        stmt.setString(1, userEmail);
+                        stmt.setLong(2, postId);
+                        stmt.setLong(3, postId);
+                    },
+                    rs -> {
+                        boolean liked = rs.getBoolean("liked");
+                        Map<String, Object> row = new HashMap<>();
+                        row.put("action", liked ? "liked" : "unliked");
+                        row.put("liked", liked);
+                        row.put("likesCount", rs.getInt("likes_count"));
+                        return row;
+                    });
 
         } catch (SQLException e) {
             throw new RuntimeException("Lỗi khi cập nhật lượt thích: " + e.getMessage(), e);
         }
 
+        if (result == null) {
+            throw new RuntimeException("Không tìm thấy người dùng hoặc bài viết");
+        }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * Bulk moderation statement for the given SET clause
+     * The outer SELECT sees blog_posts as it was before the UPDATE, i.e. the previous status
+     */
+    private static String moderationQuery(String setClause) {
+        return "WITH req AS (SELECT DISTINCT unnest(?::bigint[]) AS post_id), " +
+                "updated AS ( " +
+                "    UPDATE ctpn_content.blog_posts bp " + setClause +
+                "    FROM req WHERE bp.post_id = req.post_id " +
+                "    AND bp.status = 'draft' AND bp.is_deleted = false " +
+                "    RETURNING bp.post_id " +
+                ") " +
+                "SELECT req.post_id, (u.post_id IS NOT NULL) AS applied, bp.status AS previous_status " +
+                "FROM req " +
+                "LEFT JOIN updated u ON u.post_id = req.post_id " +
+                "LEFT JOIN ctpn_content.blog_posts bp ON bp.post_id = req.post_id AND bp.is_deleted = false";
+    }
+
+    private BlogPostSummaryDTO mapPublishedPostSummary(ResultSet rs) throws SQLException {
+        long postId = rs.getLong("post_id");
+        return new BlogPostSummaryDTO(
+                postId,
+                rs.getString("title"),
+                rs.getString("excerpt"),
+                rs.getString("featured_image"),
+                null,
+                rs.getTimestamp("published_at"),
+                rs.getInt("view_count") + blogViewCounter.pending(postId),
+                rs.getInt("likes_count"),
+                rs.getObject("read_time", Integer.class),
+                rs.getString("author_name"),
+                rs.getString("category_name"),
+                null,
+                null);
+    }
+
+    private String encodeCursor(String sortKey, long postId) {
+        String raw = sortKey + "|" + postId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a client cursor into its sort key and id; any malformed part is reported as an invalid cursor
+     */
+    private <T> Cursor<T> decodeCursor(String cursor, Function<String, T> sortKeyParser) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new Cursor<>(sortKeyParser.apply(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new RuntimeException("Cursor không hợp lệ");
+        }
+    }
+
+    private record Cursor<T>(T sortKey, long id) {
+    }
+}
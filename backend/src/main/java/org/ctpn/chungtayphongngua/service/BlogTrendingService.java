@@ -0,0 +1,169 @@
+package org.ctpn.chungtayphongngua.service;
+
+import org.ctpn.chungtayphongngua.dto.response.BlogPostSummaryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trending blog posts for the homepage
+ * A background job scores recently active posts (views, likes and approved
+ * comments with time decay) and publishes the top ranking as an immutable list,
+ * so /blog/trending is served from memory without touching the database.
+ */
+@Service
+public class BlogTrendingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlogTrendingService.class);
+
+    static final double VIEW_WEIGHT = 1.0;
+    static final double LIKE_WEIGHT = 5.0;
+    static final double COMMENT_WEIGHT = 10.0;
+
+    /** Hours added to a post's age so brand-new posts do not divide by ~0 */
+    static final double AGE_OFFSET_HOURS = 2.0;
+
+    /** Decay exponent; higher values make older posts fall off faster */
+    static final double GRAVITY = 1.5;
+
+    /**
+     * Posts published, updated or commented on inside the window; only comments made inside
+     * the window on published posts are aggregated, and they also count towards the score.
+     * When there are more candidates than the limit, the ones with the most raw engagement are kept
+     */
+    private static final String CANDIDATES_QUERY = "WITH recent_comments AS ( " +
+            "SELECT bc.post_id, COUNT(*) AS comment_count " +
+            "FROM ctpn_content.blog_comments bc " +
+            "JOIN ctpn_content.blog_posts p ON p.post_id = bc.post_id " +
+            "AND p.status = 'published' AND p.is_deleted = false " +
+            "WHERE bc.status = 'approved' AND bc.is_deleted = false AND bc.created_at >= ? " +
+            "GROUP BY bc.post_id) " +
+            "SELECT bp.post_id, bp.title, bp.excerpt, bp.featured_image, " +
+            "bp.published_at, bp.view_count, bp.likes_count, bp.read_time, " +
+            "u.full_name as author_name, c.name as category_name, " +
+            "COALESCE(rc.comment_count, 0) AS comment_count " +
+            "FROM ctpn_content.blog_posts bp " +
+            "JOIN ctpn_core.users u ON bp.author_id = u.user_id " +
+            "LEFT JOIN ctpn_content.categories c ON bp.category_id = c.category_id " +
+            "LEFT JOIN recent_comments rc ON rc.post_id = bp.post_id " +
+            "WHERE bp.status = 'published' AND bp.is_deleted = false " +
+            "AND (bp.published_at >= ? OR bp.updated_at >= ? OR rc.post_id IS NOT NULL) " +
+            "ORDER BY " + VIEW_WEIGHT + " * bp.view_count + " + LIKE_WEIGHT + " * bp.likes_count + " +
+            COMMENT_WEIGHT + " * COALESCE(rc.comment_count, 0) DESC, bp.published_at DESC LIMIT ?";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private BlogViewCounter blogViewCounter;
+
+    @Value("${blog.trending.window-days:30}")
+    private int windowDays;
+
+    @Value("${blog.trending.max-candidates:2000}")
+    private int maxCandidates;
+
+    @Value("${blog.trending.size:20}")
+    private int rankingSize;
+
+    private volatile List<BlogPostSummaryDTO> ranking = List.of();
+
+    /**
+     * Get the current trending ranking, highest score first
+     */
+    public List<BlogPostSummaryDTO> getTrendingPosts(int limit) {
+        List<BlogPostSummaryDTO> current = ranking;
+        return current.size() <= limit ? current : current.subList(0, limit);
+    }
+
+    /**
+     * Recompute the ranking from posts active inside the trending window.
+     * Every score decays with post age, so the whole window is rescored on each run
+     * rather than only the posts with new activity.
+     * The previous ranking is kept if the refresh fails.
+     */
+    @Scheduled(fixedDelayString = "${blog.trending.refresh-interval-ms:300000}",
+            initialDelayString = "${blog.trending.initial-delay-ms:10000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        List<ScoredPost> scored = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(CANDIDATES_QUERY)) {
+            Timestamp windowStart = new Timestamp(now - windowDays * 24L * 60 * 60 * 1000);
+            stmt.setTimestamp(1, windowStart);
+            stmt.setTimestamp(2, windowStart);
+            stmt.setTimestamp(3, windowStart);
+            stmt.setInt(4, maxCandidates);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long postId = rs.getLong("post_id");
+                    Timestamp publishedAt = rs.getTimestamp("published_at");
+                    long views = rs.getInt("view_count") + blogViewCounter.pending(postId);
+                    int likes = rs.getInt("likes_count");
+                    long comments = rs.getLong("comment_count");
+
+                    BlogPostSummaryDTO post = new BlogPostSummaryDTO(
+                            postId,
+                            rs.getString("title"),
+                            rs.getString("excerpt"),
+                            rs.getString("featured_image"),
+                            null,
+                            publishedAt,
+                            views,
+                            likes,
+                            rs.getObject("read_time", Integer.class),
+                            rs.getString("author_name"),
+                            rs.getString("category_name"),
+                            null,
+                            null);
+
+                    double ageHours = Math.max(now - publishedAt.getTime(), 0) / 3_600_000.0;
+                    scored.add(new ScoredPost(post, score(views, likes, comments, ageHours)));
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Failed to refresh trending blog posts: {}", e.getMessage());
+            return;
+        }
+
+        ranking = rank(scored, rankingSize);
+    }
+
+    /**
+     * Time-decayed engagement score: weighted activity divided by (age + offset)^gravity
+     */
+    static double score(long views, long likes, long comments, double ageHours) {
+        double engagement = VIEW_WEIGHT * views + LIKE_WEIGHT * likes + COMMENT_WEIGHT * comments;
+        return engagement / Math.pow(ageHours + AGE_OFFSET_HOURS, GRAVITY);
+    }
+
+    /**
+     * Top posts by score, ties broken by newer post id first
+     */
+    static List<BlogPostSummaryDTO> rank(List<ScoredPost> scored, int size) {
+        return scored.stream()
+                .sorted(Comparator.comparingDouble(ScoredPost::score).reversed()
+                        .thenComparing(sp -> sp.post().postId(), Comparator.reverseOrder()))
+                .limit(size)
+                .map(ScoredPost::post)
+                .toList();
+    }
+
+    record ScoredPost(BlogPostSummaryDTO post, double score) {
+    }
+}
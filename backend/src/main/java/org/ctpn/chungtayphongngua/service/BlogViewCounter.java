@@ -0,0 +1,116 @@
+package org.ctpn.chungtayphongngua.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for blog post view counts.
+ * Public reads only bump an in-memory counter per post; the aggregated deltas
+ * are written back in one batched UPDATE on a fixed delay and on shutdown, so
+ * popular posts no longer serialize readers on the same blog_posts row lock.
+ * A flush removes each post's counter from the map, so an increment is either in
+ * the removed delta or starts a new counter, and posts no longer viewed drop out.
+ */
+@Component
+public class BlogViewCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlogViewCounter.class);
+
+    private static final String FLUSH_QUERY = "UPDATE ctpn_content.blog_posts bp " +
+            "SET view_count = bp.view_count + d.delta " +
+            "FROM unnest(?, ?) AS d(post_id, delta) " +
+            "WHERE bp.post_id = d.post_id";
+
+    private final Map<Long, Long> pendingViews = new ConcurrentHashMap<>();
+
+    @Autowired
+    private DataSource dataSource;
+
+    public BlogViewCounter(MeterRegistry meterRegistry) {
+        Gauge.builder("blog.views.pending", this, BlogViewCounter::totalPending)
+                .description("View increments buffered in memory and not yet flushed to the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record one view of the given post
+     */
+    public void increment(Long postId) {
+        pendingViews.merge(postId, 1L, Long::sum);
+    }
+
+    /**
+     * Views recorded for the post that are not yet persisted
+     */
+    public long pending(Long postId) {
+        return pendingViews.getOrDefault(postId, 0L);
+    }
+
+    /**
+     * Total views buffered across all posts
+     */
+    public long totalPending() {
+        long total = 0;
+        for (long views : pendingViews.values()) {
+            total += views;
+        }
+        return total;
+    }
+
+    /**
+     * Flush buffered deltas to blog_posts in a single statement.
+     * Deltas that fail to persist are added back so they are retried on the next flush.
+     */
+    @Scheduled(fixedDelayString = "${blog.view-counter.flush-interval-ms:5000}")
+    public void flush() {
+        List<Long> postIds = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+
+        for (Long postId : pendingViews.keySet()) {
+            Long delta = pendingViews.remove(postId);
+            if (delta != null && delta > 0) {
+                postIds.add(postId);
+                deltas.add(delta);
+            }
+        }
+
+        if (postIds.isEmpty()) {
+            return;
+        }
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FLUSH_QUERY)) {
+            Array idArray = conn.createArrayOf("bigint", postIds.toArray());
+            Array deltaArray = conn.createArrayOf("bigint", deltas.toArray());
+            stmt.setArray(1, idArray);
+            stmt.setArray(2, deltaArray);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.warn("Failed to flush {} blog view deltas, will retry: {}", postIds.size(), e.getMessage());
+            for (int i = 0; i < postIds.size(); i++) {
+                pendingViews.merge(postIds.get(i), deltas.get(i), Long::sum);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,217 @@
+package org.ctpn.chungtayphongngua.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.ctpn.chungtayphongngua.entity.ConsultantAvailability;
+import org.ctpn.chungtayphongngua.entity.ConsultantAvailabilityException;
+import org.ctpn.chungtayphongngua.repository.ConsultantAvailabilityExceptionRepository;
+import org.ctpn.chungtayphongngua.repository.ConsultantAvailabilityRepository;
+import org.ctpn.chungtayphongngua.repository.ConsultationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultant availability calendar
+ * For a date range it loads the weekly schedule, the exceptions and the bookings in three
+ * queries, then works per day in minutes of the day: free time is the day's schedule
+ * windows minus exceptions and booked intervals, and a slot is free when it fits entirely
+ * inside that. Overlapping or touching windows of the same weekday are merged first, so
+ * a day never lists a slot twice and slots come out in time order.
+ * Build time is recorded per view as consultation.calendar.build.
+ */
+@Component
+public class ConsultantCalendar {
+
+    /** Length of a bookable slot; consultations default to one hour */
+    public static final int SLOT_MINUTES = 60;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /** Bookings that started up to a day before the range can still overlap its first day */
+    private static final int BOOKING_LOOKBACK_DAYS = 1;
+
+    @Autowired
+    private ConsultantAvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private ConsultantAvailabilityExceptionRepository exceptionRepository;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    private final Map<String, Timer> buildTimers = new HashMap<>();
+
+    public ConsultantCalendar(MeterRegistry meterRegistry) {
+        for (String view : List.of("day", "week", "month", "other")) {
+            buildTimers.put(view, Timer.builder("consultation.calendar.build")
+                    .description("Time to load and compute a consultant's free slots")
+                    .tag("view", view)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Start times of free slots for every date in [startDate, endDate], in date order
+     */
+    public Map<LocalDate, List<LocalTime>> freeSlots(Long consultantId, LocalDate startDate, LocalDate endDate) {
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        return buildTimers.get(view(days)).record(() -> {
+            Schedule schedule = load(consultantId, startDate, endDate);
+            Map<LocalDate, List<LocalTime>> slots = new LinkedHashMap<>();
+            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                slots.put(date, schedule.freeSlots(date));
+            }
+            return slots;
+        });
+    }
+
+    /**
+     * Whether a slot starting at the given time lies inside the schedule and is not blocked
+     */
+    public boolean isFree(Long consultantId, LocalDateTime start) {
+        LocalDate date = start.toLocalDate();
+        int from = start.getHour() * 60 + start.getMinute();
+        if (from + SLOT_MINUTES > MINUTES_PER_DAY) {
+            return false;
+        }
+        return buildTimers.get("day").record(() -> load(consultantId, date, date).isFree(date, from));
+    }
+
+    private Schedule load(Long consultantId, LocalDate startDate, LocalDate endDate) {
+        // Weekly windows indexed by day of week (0 = Sunday, as stored)
+        List<List<int[]>> weekly = new ArrayList<>(7);
+        for (int i = 0; i < 7; i++) {
+            weekly.add(new ArrayList<>());
+        }
+        for (ConsultantAvailability availability : availabilityRepository.findWeeklyAvailability(consultantId)) {
+            weekly.get(availability.getDayOfWeek() % 7).add(new int[]{
+                    minutes(availability.getStartTime()), minutes(availability.getEndTime())});
+        }
+        weekly.replaceAll(ConsultantCalendar::merge);
+
+        Map<LocalDate, List<int[]>> blocked = new HashMap<>();
+        for (ConsultantAvailabilityException exception :
+                exceptionRepository.findExceptionsBetween(consultantId, startDate, endDate)) {
+            // No times means the whole day is off
+            int from = exception.getStartTime() == null ? 0 : minutes(exception.getStartTime());
+            int to = exception.getEndTime() == null ? MINUTES_PER_DAY : minutes(exception.getEndTime());
+            block(blocked, exception.getExceptionDate(), from, to);
+        }
+
+        LocalDateTime rangeStart = startDate.atStartOfDay();
+        for (Object[] booking : consultationRepository.findBookedIntervals(consultantId,
+                rangeStart.minusDays(BOOKING_LOOKBACK_DAYS), endDate.plusDays(1).atStartOfDay())) {
+            LocalDateTime start = (LocalDateTime) booking[0];
+            int duration = booking[1] != null ? (Integer) booking[1] : SLOT_MINUTES;
+            LocalDateTime end = start.plusMinutes(duration);
+            // Split bookings that cross midnight into per-day intervals
+            for (LocalDate date = start.toLocalDate(); date.atStartOfDay().isBefore(end); date = date.plusDays(1)) {
+                LocalDateTime dayStart = date.atStartOfDay();
+                int from = start.isAfter(dayStart) ? minutes(start.toLocalTime()) : 0;
+                int to = end.isBefore(dayStart.plusDays(1)) ? minutes(end.toLocalTime()) : MINUTES_PER_DAY;
+                block(blocked, date, from, to);
+            }
+        }
+
+        blocked.replaceAll((date, intervals) -> merge(intervals));
+        return new Schedule(weekly, blocked);
+    }
+
+    private static void block(Map<LocalDate, List<int[]>> blocked, LocalDate date, int from, int to) {
+        if (from < to) {
+            blocked.computeIfAbsent(date, d -> new ArrayList<>()).add(new int[]{from, to});
+        }
+    }
+
+    /** Sort and merge overlapping or touching intervals */
+    private static List<int[]> merge(List<int[]> intervals) {
+        intervals.sort(Comparator.comparingInt(interval -> interval[0]));
+        List<int[]> merged = new ArrayList<>(intervals.size());
+        for (int[] interval : intervals) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && interval[0] <= last[1]) {
+                last[1] = Math.max(last[1], interval[1]);
+            } else {
+                merged.add(new int[]{interval[0], interval[1]});
+            }
+        }
+        return merged;
+    }
+
+    private static int minutes(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static String view(long days) {
+        if (days <= 1) {
+            return "day";
+        }
+        if (days <= 7) {
+            return "week";
+        }
+        return days <= 31 ? "month" : "other";
+    }
+
+    /**
+     * Loaded calendar data for one consultant and date range, all times in minutes of the day
+     */
+    private record Schedule(List<List<int[]>> weekly, Map<LocalDate, List<int[]>> blocked) {
+
+        /** Hourly slots from the start of each schedule window that fit before its end */
+        List<LocalTime> freeSlots(LocalDate date) {
+            List<int[]> busy = blocked.getOrDefault(date, List.of());
+            List<LocalTime> slots = new ArrayList<>();
+            for (int[] window : windows(date)) {
+                for (int start = window[0]; start + SLOT_MINUTES <= window[1]; start += SLOT_MINUTES) {
+                    if (!overlaps(busy, start, start + SLOT_MINUTES)) {
+                        slots.add(LocalTime.of(start / 60, start % 60));
+                    }
+                }
+            }
+            return slots;
+        }
+
+        boolean isFree(LocalDate date, int start) {
+            int end = start + SLOT_MINUTES;
+            for (int[] window : windows(date)) {
+                if (window[0] <= start && end <= window[1]) {
+                    return !overlaps(blocked.getOrDefault(date, List.of()), start, end);
+                }
+            }
+            return false;
+        }
+
+        private List<int[]> windows(LocalDate date) {
+            return weekly.get(date.getDayOfWeek().getValue() % 7);
+        }
+
+        /** Binary search over sorted, merged intervals for one intersecting [start, end) */
+        private static boolean overlaps(List<int[]> busy, int start, int end) {
+            int low = 0;
+            int high = busy.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int[] interval = busy.get(mid);
+                if (interval[1] <= start) {
+                    low = mid + 1;
+                } else if (interval[0] >= end) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
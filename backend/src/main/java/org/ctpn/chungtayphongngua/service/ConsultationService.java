@@ -13,7 +13,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,15 +32,14 @@ import java.util.stream.Collectors;
 @Transactional
 public class ConsultationService {
 
+    private static final int MAX_CALENDAR_DAYS = 62;
+
     @Autowired
     private ConsultationRepository consultationRepository;
 
     @Autowired
     private ConsultantAvailabilityRepository availabilityRepository;
 
-    @Autowired
-    private ConsultantAvailabilityExceptionRepository exceptionRepository;
-
     @Autowired
     private UserRepository userRepository;
 
@@ -48,6 +49,9 @@ public class ConsultationService {
     @Autowired
     private org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ConsultantCalendar consultantCalendar;
+
     // Consultant Management Methods
 
     /**
@@ -81,34 +85,10 @@ public class ConsultationService {
     /**
      * Check if consultant is available at specific date and time
      * FR-013: Real-time availability checking
+     * The whole hour must fit in a schedule window and not overlap an exception or booking
      */
     public boolean isConsultantAvailable(Long consultantId, LocalDateTime proposedDateTime) {
-        LocalDate date = proposedDateTime.toLocalDate();
-        LocalTime time = proposedDateTime.toLocalTime();
-        int dayOfWeek = date.getDayOfWeek().getValue() % 7; // Convert to 0=Sunday format
-
-        // Check regular availability
-        Optional<ConsultantAvailability> availability = availabilityRepository
-                .findConsultantAvailabilityAtTime(consultantId, dayOfWeek, time);
-
-        if (!availability.isPresent()) {
-            return false; // No regular availability
-        }
-
-        // Check for exceptions
-        Optional<ConsultantAvailabilityException> exception = exceptionRepository
-                .findExceptionAtDateTime(consultantId, date, time);
-
-        if (exception.isPresent()) {
-            return false; // Has exception (unavailable or busy)
-        }
-
-        // Check for existing bookings
-        LocalDateTime endTime = proposedDateTime.plusMinutes(60); // Default 1-hour duration
-        List<Consultation> conflicts = consultationRepository
-                .findConflictingConsultations(consultantId, proposedDateTime, endTime);
-
-        return conflicts.isEmpty();
+        return consultantCalendar.isFree(consultantId, proposedDateTime);
     }
 
     /**
@@ -116,30 +96,21 @@ public class ConsultationService {
      * FR-013: Available time slots display
      */
     public List<LocalTime> getAvailableTimeSlots(Long consultantId, LocalDate date) {
-        List<LocalTime> availableSlots = new ArrayList<>();
-        int dayOfWeek = date.getDayOfWeek().getValue() % 7;
-
-        // Get regular availability for this day
-        List<ConsultantAvailability> dailyAvailability = availabilityRepository
-                .findByUserUserIdAndDayOfWeekAndIsAvailableTrueOrderByStartTimeAsc(consultantId, dayOfWeek);
-
-        for (ConsultantAvailability availability : dailyAvailability) {
-            LocalTime currentSlot = availability.getStartTime();
-            LocalTime endTime = availability.getEndTime();
-
-            // Generate 1-hour slots
-            while (currentSlot.plusHours(1).isBefore(endTime) || currentSlot.plusHours(1).equals(endTime)) {
-                LocalDateTime proposedDateTime = LocalDateTime.of(date, currentSlot);
-
-                if (isConsultantAvailable(consultantId, proposedDateTime)) {
-                    availableSlots.add(currentSlot);
-                }
+        return consultantCalendar.freeSlots(consultantId, date, date).get(date);
+    }
 
-                currentSlot = currentSlot.plusHours(1);
-            }
+    /**
+     * Get available time slots for every date in a range (week/month calendar views)
+     */
+    public Map<LocalDate, List<LocalTime>> getAvailableTimeSlots(Long consultantId, LocalDate startDate,
+            LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new RuntimeException("Ngày kết thúc phải sau ngày bắt đầu");
         }
-
-        return availableSlots;
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= MAX_CALENDAR_DAYS) {
+            throw new RuntimeException("Chỉ có thể xem lịch tối đa " + MAX_CALENDAR_DAYS + " ngày");
+        }
+        return consultantCalendar.freeSlots(consultantId, startDate, endDate);
     }
 
     // Booking Management Methods
@@ -0,0 +1,202 @@
+package org.ctpn.chungtayphongngua.service;
+
+import org.ctpn.chungtayphongngua.dto.response.CourseRecommendationDTO;
+import org.ctpn.chungtayphongngua.repository.CourseRepository;
+import org.ctpn.chungtayphongngua.repository.EnrollmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Course recommendations by risk level and age group
+ * The active catalog is loaded once as a projection and ranked into one immutable list
+ * per (risk level, age group), plus one list by rating alone for the public homepage;
+ * a background check compares a digest of the courses table and rebuilds the lists
+ * only when the catalog changed. Lists are built only at startup and by that check;
+ * until the first build succeeds, requests get empty lists instead of querying.
+ * Per-user results take the cached list and skip the user's enrolled course ids
+ * with a set lookup.
+ */
+@Service
+public class CourseRecommendationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseRecommendationService.class);
+
+    public static final String ADULT = "adult";
+    public static final String YOUTH = "youth";
+
+    private static final List<String> RISK_LEVELS = List.of("LOW", "MODERATE", "HIGH");
+
+    /** Preferred course levels per risk level, best match first */
+    private static final Map<String, List<String>> PREFERRED_LEVELS = Map.of(
+            "LOW", List.of("beginner", "intermediate", "advanced"),
+            "MODERATE", List.of("intermediate", "beginner", "advanced"),
+            "HIGH", List.of("advanced", "intermediate", "beginner"));
+
+    /** Number of courses returned per risk level; HIGH gets the whole catalog */
+    private static final Map<String, Integer> LIMITS = Map.of(
+            "LOW", 2,
+            "MODERATE", 3,
+            "HIGH", Integer.MAX_VALUE);
+
+    private static final String YOUTH_MARKER = "thanh thiếu niên";
+
+    /** Rating, then number of reviews, both descending; course id keeps the order stable */
+    private static final Comparator<CourseRecommendationDTO> BY_RATING = Comparator
+            .comparing((CourseRecommendationDTO course) -> course.rating() != null ? course.rating() : BigDecimal.ZERO,
+                    Comparator.reverseOrder())
+            .thenComparing(course -> course.totalReviews() != null ? course.totalReviews() : 0, Comparator.reverseOrder())
+            .thenComparing(CourseRecommendationDTO::courseId);
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    // No fingerprint until the first successful build
+    private volatile Snapshot snapshot = new Snapshot(null, Map.of(), List.of());
+
+    /**
+     * Highest rated active courses, as many as the risk level allows, without per-user filtering
+     */
+    public List<CourseRecommendationDTO> getTopRated(String riskLevel) {
+        String level = normalizeRiskLevel(riskLevel);
+        List<CourseRecommendationDTO> topRated = snapshot.topRated();
+        int limit = LIMITS.get(level);
+        return topRated.size() <= limit ? topRated : topRated.subList(0, limit);
+    }
+
+    /**
+     * Recommendations for a user, excluding courses the user is already enrolled in
+     */
+    public List<CourseRecommendationDTO> getRecommendationsForUser(String riskLevel, Long userId, LocalDate dateOfBirth) {
+        String level = normalizeRiskLevel(riskLevel);
+        List<CourseRecommendationDTO> ranked = rankedFor(level, ageGroupOf(dateOfBirth));
+        Set<Long> enrolled = enrollmentRepository.findCourseIdsByUserId(userId);
+        int limit = LIMITS.get(level);
+
+        List<CourseRecommendationDTO> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (CourseRecommendationDTO course : ranked) {
+            if (result.size() == limit) {
+                break;
+            }
+            if (!enrolled.contains(course.courseId())) {
+                result.add(course);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Age group used for recommendations; users without a birth date are treated as adults
+     */
+    public static String ageGroupOf(LocalDate dateOfBirth) {
+        if (dateOfBirth == null) {
+            return ADULT;
+        }
+        return Period.between(dateOfBirth, LocalDate.now()).getYears() >= 18 ? ADULT : YOUTH;
+    }
+
+    /**
+     * Map assessment and homepage risk labels (low/medium/moderate/high) to LOW, MODERATE or HIGH
+     */
+    static String normalizeRiskLevel(String riskLevel) {
+        if (riskLevel == null) {
+            return "MODERATE";
+        }
+        return switch (riskLevel.trim().toLowerCase(Locale.ROOT)) {
+            case "low" -> "LOW";
+            case "high" -> "HIGH";
+            default -> "MODERATE";
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    /**
+     * Rebuild the ranked lists if the course catalog changed since the last build
+     */
+    @Scheduled(fixedDelayString = "${courses.recommendations.refresh-interval-ms:60000}",
+            initialDelayString = "${courses.recommendations.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            String fingerprint = courseRepository.getCatalogFingerprint();
+            if (fingerprint.equals(snapshot.fingerprint())) {
+                return;
+            }
+            List<CourseRecommendationDTO> courses = courseRepository.findRecommendationCandidates();
+            List<CourseRecommendationDTO> topRated = new ArrayList<>(courses);
+            topRated.sort(BY_RATING);
+            snapshot = new Snapshot(fingerprint, rank(courses), List.copyOf(topRated));
+            logger.info("Course recommendations rebuilt from {} active courses.", courses.size());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh course recommendations: {}", e.getMessage());
+        }
+    }
+
+    private List<CourseRecommendationDTO> rankedFor(String level, String ageGroup) {
+        return snapshot.ranked().getOrDefault(key(level, ageGroup), List.of());
+    }
+
+    private static Map<String, List<CourseRecommendationDTO>> rank(List<CourseRecommendationDTO> courses) {
+        Map<String, List<CourseRecommendationDTO>> ranked = new HashMap<>();
+        for (String level : RISK_LEVELS) {
+            for (String ageGroup : List.of(ADULT, YOUTH)) {
+                List<CourseRecommendationDTO> sorted = new ArrayList<>(courses);
+                sorted.sort(comparator(level, ageGroup));
+                ranked.put(key(level, ageGroup), List.copyOf(sorted));
+            }
+        }
+        return Map.copyOf(ranked);
+    }
+
+    /**
+     * Preferred course level first, then youth-oriented courses for youth, then rating and reviews
+     */
+    private static Comparator<CourseRecommendationDTO> comparator(String level, String ageGroup) {
+        List<String> preferred = PREFERRED_LEVELS.get(level);
+        Comparator<CourseRecommendationDTO> byLevel = Comparator.comparingInt(course -> {
+            int index = course.level() == null ? -1 : preferred.indexOf(course.level().toLowerCase(Locale.ROOT));
+            return index < 0 ? preferred.size() : index;
+        });
+        if (YOUTH.equals(ageGroup)) {
+            byLevel = byLevel.thenComparing(course -> !isYouthCourse(course));
+        }
+        return byLevel.thenComparing(BY_RATING);
+    }
+
+    private static boolean isYouthCourse(CourseRecommendationDTO course) {
+        return contains(course.category(), YOUTH_MARKER) || contains(course.title(), YOUTH_MARKER);
+    }
+
+    private static boolean contains(String text, String marker) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(marker);
+    }
+
+    private static String key(String level, String ageGroup) {
+        return level + "|" + (YOUTH.equals(ageGroup) ? YOUTH : ADULT);
+    }
+
+    private record Snapshot(String fingerprint, Map<String, List<CourseRecommendationDTO>> ranked,
+                            List<CourseRecommendationDTO> topRated) {
+    }
+}
@@ -50,41 +50,6 @@ public class CourseService {
         return courseRepository.findByTitleContainingIgnoreCaseAndIsActiveTrue(title);
     }
 
-    public List<Course> getCourseRecommendations(String riskLevel) {
-        Pageable top3 = PageRequest.of(0, 3);
-        Pageable top2 = PageRequest.of(0, 2);
-
-        switch (riskLevel.toLowerCase()) {
-            case "high":
-                return courseRepository.findByIsActiveTrue();
-            case "medium":
-                return courseRepository.findTop3ByIsActiveTrueOrderByRatingDesc(top3);
-            case "low":
-                return courseRepository.findTop2ByIsActiveTrueOrderByRatingDesc(top2);
-            default:
-                return courseRepository.findTop3ByIsActiveTrueOrderByRatingDesc(top3);
-        }
-    }
-
-    public List<Course> getCourseRecommendationsByCategories(String riskLevel) {
-        List<String> categories;
-
-        switch (riskLevel.toLowerCase()) {
-            case "high":
-                categories = Arrays.asList("Tư vấn chuyên sâu", "Điều trị và phục hồi", "Hỗ trợ tâm lý");
-                break;
-            case "medium":
-                categories = Arrays.asList("Giáo dục phòng ngừa", "Kỹ năng sống", "Tư vấn cơ bản");
-                break;
-            case "low":
-            default:
-                categories = Arrays.asList("Giáo dục tổng quát", "Nâng cao nhận thức", "Hoạt động cộng đồng");
-                break;
-        }
-
-        return courseRepository.findRecommendedCourses(categories);
-    }
-
     public void enrollUser(Long courseId, String username) {
         User user = userRepository.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
@@ -32,9 +32,6 @@ public class DashboardService {
     @Autowired
     private ConsultationRepository consultationRepository;
     
-    @Autowired
-    private AssessmentResultRepository assessmentResultRepository;
-    
     @Autowired
     private CourseRepository courseRepository;
 
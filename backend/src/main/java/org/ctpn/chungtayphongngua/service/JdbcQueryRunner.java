@@ -0,0 +1,98 @@
+package org.ctpn.chungtayphongngua.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Small query layer for services that use hand-written SQL.
+ * Every call borrows a pooled connection and closes the connection, statement and
+ * result set with try-with-resources. Callers pass SQL constants so the text is
+ * stable and pgjdbc can reuse its server-side prepared statement on each pooled
+ * connection (see prepareThreshold in application.properties).
+ * SQLExceptions are rethrown so each service keeps its own error messages.
+ */
+@Component
+public class JdbcQueryRunner {
+
+    /**
+     * Binds parameters to a prepared statement
+     */
+    @FunctionalInterface
+    public interface Binder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    /**
+     * Maps the current row of a result set
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Consumes a whole result set
+     */
+    @FunctionalInterface
+    public interface ResultHandler<T> {
+        T handle(ResultSet rs) throws SQLException;
+    }
+
+    public static final Binder NO_PARAMS = stmt -> {
+    };
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * Run a query and hand the open result set to the handler
+     */
+    public <T> T query(String sql, Binder binder, ResultHandler<T> handler) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return handler.handle(rs);
+            }
+        }
+    }
+
+    /**
+     * Run a query and map every row
+     */
+    public <T> List<T> queryForList(String sql, Binder binder, RowMapper<T> mapper) throws SQLException {
+        return query(sql, binder, rs -> {
+            List<T> rows = new ArrayList<>();
+            while (rs.next()) {
+                rows.add(mapper.map(rs));
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Run a query and map the first row, or return null when there is none
+     */
+    public <T> T queryForObject(String sql, Binder binder, RowMapper<T> mapper) throws SQLException {
+        return query(sql, binder, rs -> rs.next() ? mapper.map(rs) : null);
+    }
+
+    /**
+     * Run an INSERT/UPDATE/DELETE and return the affected row count
+     */
+    public int update(String sql, Binder binder) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+            return stmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.ctpn.chungtayphongngua.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ctpn.chungtayphongngua.entity.AssessmentType;
+import org.ctpn.chungtayphongngua.service.AssessmentScoringEngine.ScoringTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AssessmentScoringEngineTest {
+
+    /** Seeded ASSIST cut-offs, with enough frequency questions (10 x 4 points) to reach every band */
+    private static final String ASSIST_JSON = """
+            {
+                "scoring": {
+                    "low": {"min": 0, "max": 10},
+                    "moderate": {"min": 11, "max": 26},
+                    "high": {"min": 27, "max": 100}
+                },
+                "options": {
+                    "frequency": ["Không bao giờ", "Một hoặc hai lần", "Hàng tháng", "Hàng tuần", "Hàng ngày"]
+                },
+                "questions": [
+                    {"id": "q1", "type": "frequency"}, {"id": "q2", "type": "frequency"},
+                    {"id": "q3", "type": "frequency"}, {"id": "q4", "type": "frequency"},
+                    {"id": "q5", "type": "frequency"}, {"id": "q6", "type": "frequency"},
+                    {"id": "q7", "type": "frequency"}, {"id": "q8", "type": "frequency"},
+                    {"id": "q9", "type": "frequency"}, {"id": "q10", "type": "frequency"}
+                ]
+            }
+            """;
+
+    /** Seeded CRAFFT catalog */
+    private static final String CRAFFT_JSON = """
+            {
+                "scoring": {
+                    "low": {"min": 0, "max": 1},
+                    "high": {"min": 2, "max": 6}
+                },
+                "options": {
+                    "yesno": ["Không", "Có"]
+                },
+                "questions": [
+                    {"id": "q1", "type": "yesno"}, {"id": "q2", "type": "yesno"}, {"id": "q3", "type": "yesno"},
+                    {"id": "q4", "type": "yesno"}, {"id": "q5", "type": "yesno"}, {"id": "q6", "type": "yesno"}
+                ]
+            }
+            """;
+
+    private ScoringTable assist;
+
+    private ScoringTable crafft;
+
+    @BeforeEach
+    void compileTables() {
+        AssessmentScoringEngine engine = new AssessmentScoringEngine();
+        ReflectionTestUtils.setField(engine, "objectMapper", new ObjectMapper());
+        assist = engine.compile(new AssessmentType("ASSIST", "adult", null, "frequency_scoring", ASSIST_JSON));
+        crafft = engine.compile(new AssessmentType("CRAFFT", "youth", null, "binary_scoring", CRAFFT_JSON));
+    }
+
+    @Test
+    void assistRiskLevelsChangeAtEachThreshold() {
+        assertLevel(assist, 0, "LOW");
+        assertLevel(assist, 10, "LOW");
+        assertLevel(assist, 11, "MODERATE");
+        assertLevel(assist, 26, "MODERATE");
+        assertLevel(assist, 27, "HIGH");
+        assertLevel(assist, 40, "HIGH");
+    }
+
+    @Test
+    void crafftRiskLevelsChangeAtEachThreshold() {
+        assertLevel(crafft, 0, "LOW");
+        assertLevel(crafft, 1, "LOW");
+        assertLevel(crafft, 2, "HIGH");
+        assertLevel(crafft, 6, "HIGH");
+    }
+
+    @Test
+    void builtInTablesUseTheSameThresholds() {
+        ScoringTable assistDefault = AssessmentScoringEngine.defaultTable("ASSIST");
+        assertEquals("LOW", assistDefault.riskLevel(10));
+        assertEquals("MODERATE", assistDefault.riskLevel(11));
+        assertEquals("MODERATE", assistDefault.riskLevel(26));
+        assertEquals("HIGH", assistDefault.riskLevel(27));
+
+        ScoringTable crafftDefault = AssessmentScoringEngine.defaultTable("CRAFFT");
+        assertEquals("LOW", crafftDefault.riskLevel(1));
+        assertEquals("HIGH", crafftDefault.riskLevel(2));
+    }
+
+    @Test
+    void assistScoresOptionIndexesAndLabels() {
+        assertEquals(4, assist.answerWeight("q1", "4"));
+        assertEquals(4, assist.answerWeight("q1", "Hàng ngày"));
+        assertEquals(2, assist.answerWeight("q1", "monthly"));
+        assertEquals(0, assist.answerWeight("q1", "Không bao giờ"));
+    }
+
+    @Test
+    void crafftScoresAnyYesOptionAsOnePoint() {
+        assertEquals(1, crafft.answerWeight("q1", "1"));
+        assertEquals(1, crafft.answerWeight("q1", "Có"));
+        assertEquals(0, crafft.answerWeight("q1", "0"));
+        assertEquals(0, crafft.answerWeight("q1", "Không"));
+    }
+
+    @Test
+    void outOfRangeNumericAnswersScoreZero() {
+        // The old scorer took parseInt of any integer answer; only option indexes count now
+        assertEquals(0, assist.answerWeight("q1", "5"));
+        assertEquals(0, assist.answerWeight("q1", "27"));
+        assertEquals(0, assist.answerWeight("q1", "-1"));
+        assertEquals(0, assist.answerWeight("q1", "1000"));
+        assertEquals(0, crafft.answerWeight("q1", "2"));
+        assertEquals("LOW", assist.riskLevel(assist.score(Map.of("q1", "27"))));
+    }
+
+    @Test
+    void vietnameseYesNoLabelsScoreLikeEnglishLabels() {
+        ScoringTable table = AssessmentScoringEngine.defaultTable("CRAFFT");
+
+        assertEquals(1, table.answerWeight("q1", "có"));
+        assertEquals(table.answerWeight("q1", "yes"), table.answerWeight("q1", "Có"));
+        assertEquals(0, table.answerWeight("q1", "không"));
+        assertEquals(table.answerWeight("q1", "no"), table.answerWeight("q1", "Không"));
+    }
+
+    @Test
+    void vietnameseAndEnglishSubmissionsReachTheSameRiskLevel() {
+        ScoringTable table = AssessmentScoringEngine.defaultTable("CRAFFT");
+
+        int vietnamese = table.score(Map.of("q1", "có", "q2", "có", "q3", "không"));
+        int english = table.score(Map.of("q1", "yes", "q2", "yes", "q3", "no"));
+
+        assertEquals(english, vietnamese);
+        assertEquals(table.riskLevel(english), table.riskLevel(vietnamese));
+    }
+
+    /** Score a submission built to total exactly the given score and check its level */
+    private static void assertLevel(ScoringTable table, int total, String expectedLevel) {
+        Map<String, String> answers = answersTotalling(total, isBinary(table));
+        int score = table.score(answers);
+        assertEquals(total, score);
+        assertEquals(expectedLevel, table.riskLevel(score));
+    }
+
+    private static boolean isBinary(ScoringTable table) {
+        return "CRAFFT".equals(table.getAssessmentType());
+    }
+
+    /** Answers q1, q2, ... with the highest option until the total is used up, as option indexes */
+    private static Map<String, String> answersTotalling(int total, boolean binary) {
+        int maxOption = binary ? 1 : 4;
+        Map<String, String> answers = new HashMap<>();
+        int remaining = total;
+        for (int question = 1; remaining > 0; question++) {
+            int option = Math.min(maxOption, remaining);
+            answers.put("q" + question, String.valueOf(option));
+            remaining -= option;
+        }
+        return answers;
+    }
+}
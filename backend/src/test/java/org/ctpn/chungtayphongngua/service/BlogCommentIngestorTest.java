@@ -0,0 +1,73 @@
+package org.ctpn.chungtayphongngua.service;
+
+import org.ctpn.chungtayphongngua.service.BlogCommentIngestor.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlogCommentIngestorTest {
+
+    /** Default limits: a burst of 5, refilled at 6 per minute (one token every 10 seconds) */
+    private static final double CAPACITY = 5;
+
+    private static final double REFILL_PER_SECOND = 6 / 60.0;
+
+    private static final long START = 1_000_000_000L;
+
+    @Test
+    void allowsABurstUpToCapacityThenRejects() {
+        TokenBucket bucket = new TokenBucket(CAPACITY, REFILL_PER_SECOND, START);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryConsume(START), "comment " + (i + 1) + " of the burst");
+        }
+        assertFalse(bucket.tryConsume(START));
+    }
+
+    @Test
+    void refillsOneTokenPerIntervalAfterTheBurst() {
+        TokenBucket bucket = new TokenBucket(CAPACITY, REFILL_PER_SECOND, START);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryConsume(START);
+        }
+
+        assertFalse(bucket.tryConsume(START + seconds(9)));
+        assertTrue(bucket.tryConsume(START + seconds(10)));
+        assertFalse(bucket.tryConsume(START + seconds(11)));
+        assertTrue(bucket.tryConsume(START + seconds(20)));
+    }
+
+    @Test
+    void rejectedAttemptsDoNotConsumeTokens() {
+        TokenBucket bucket = new TokenBucket(CAPACITY, REFILL_PER_SECOND, START);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryConsume(START);
+        }
+        for (int second = 1; second < 10; second++) {
+            assertFalse(bucket.tryConsume(START + seconds(second)));
+        }
+
+        assertTrue(bucket.tryConsume(START + seconds(10)));
+    }
+
+    @Test
+    void idleTimeRefillsOnlyUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(CAPACITY, REFILL_PER_SECOND, START);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryConsume(START);
+        }
+
+        long later = START + TimeUnit.HOURS.toNanos(1);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryConsume(later));
+        }
+        assertFalse(bucket.tryConsume(later));
+    }
+
+    private static long seconds(long seconds) {
+        return TimeUnit.SECONDS.toNanos(seconds);
+    }
+}
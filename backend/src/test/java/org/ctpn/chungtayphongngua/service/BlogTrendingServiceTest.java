@@ -0,0 +1,78 @@
+package org.ctpn.chungtayphongngua.service;
+
+import org.ctpn.chungtayphongngua.dto.response.BlogPostSummaryDTO;
+import org.ctpn.chungtayphongngua.service.BlogTrendingService.ScoredPost;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlogTrendingServiceTest {
+
+    @Test
+    void commentsOutweighLikesAndLikesOutweighViews() {
+        double age = 10;
+        assertTrue(BlogTrendingService.score(0, 0, 1, age) > BlogTrendingService.score(0, 1, 0, age));
+        assertTrue(BlogTrendingService.score(0, 1, 0, age) > BlogTrendingService.score(1, 0, 0, age));
+        assertEquals(BlogTrendingService.score(10, 0, 0, age), BlogTrendingService.score(0, 0, 1, age), 1e-9);
+    }
+
+    @Test
+    void sameActivityScoresLowerAsThePostAges() {
+        double fresh = BlogTrendingService.score(100, 10, 5, 0);
+        double dayOld = BlogTrendingService.score(100, 10, 5, 24);
+        double weekOld = BlogTrendingService.score(100, 10, 5, 24 * 7);
+
+        assertTrue(fresh > dayOld);
+        assertTrue(dayOld > weekOld);
+    }
+
+    @Test
+    void postWithoutActivityScoresZero() {
+        assertEquals(0.0, BlogTrendingService.score(0, 0, 0, 0));
+    }
+
+    @Test
+    void olderPostWithMuchMoreActivityCanOutrankANewOne() {
+        double quietNewPost = BlogTrendingService.score(20, 0, 0, 1);
+        double busyOldPost = BlogTrendingService.score(5000, 200, 80, 72);
+
+        assertTrue(busyOldPost > quietNewPost);
+    }
+
+    @Test
+    void rankOrdersByScoreAndKeepsTheTopEntries() {
+        List<ScoredPost> scored = List.of(
+                scored(1, BlogTrendingService.score(50, 2, 0, 48)),
+                scored(2, BlogTrendingService.score(300, 20, 10, 5)),
+                scored(3, BlogTrendingService.score(10, 0, 0, 1)),
+                scored(4, BlogTrendingService.score(300, 20, 10, 30)));
+
+        assertEquals(List.of(2L, 4L, 3L, 1L), ids(BlogTrendingService.rank(scored, 10)));
+        assertEquals(List.of(2L, 4L), ids(BlogTrendingService.rank(scored, 2)));
+    }
+
+    @Test
+    void rankBreaksTiesByNewerPostId() {
+        List<ScoredPost> scored = List.of(scored(7, 1.5), scored(9, 1.5), scored(8, 1.5));
+
+        assertEquals(List.of(9L, 8L, 7L), ids(BlogTrendingService.rank(scored, 3)));
+    }
+
+    @Test
+    void rankOfNoCandidatesIsEmpty() {
+        assertTrue(BlogTrendingService.rank(List.of(), 20).isEmpty());
+    }
+
+    private static ScoredPost scored(long postId, double score) {
+        BlogPostSummaryDTO post = new BlogPostSummaryDTO(postId, "Post " + postId, null, null, null,
+                null, 0L, 0, null, null, null, null, null);
+        return new ScoredPost(post, score);
+    }
+
+    private static List<Long> ids(List<BlogPostSummaryDTO> posts) {
+        return posts.stream().map(BlogPostSummaryDTO::postId).toList();
+    }
+}
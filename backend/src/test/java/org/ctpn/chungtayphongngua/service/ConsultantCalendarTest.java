@@ -0,0 +1,175 @@
+package org.ctpn.chungtayphongngua.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ctpn.chungtayphongngua.entity.ConsultantAvailability;
+import org.ctpn.chungtayphongngua.entity.ConsultantAvailabilityException;
+import org.ctpn.chungtayphongngua.repository.ConsultantAvailabilityExceptionRepository;
+import org.ctpn.chungtayphongngua.repository.ConsultantAvailabilityRepository;
+import org.ctpn.chungtayphongngua.repository.ConsultationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConsultantCalendarTest {
+
+    private static final Long CONSULTANT_ID = 7L;
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 19);
+
+    private static final LocalDate NEXT_DAY = DAY.plusDays(1);
+
+    private final List<ConsultantAvailability> weekly = new ArrayList<>();
+
+    private final List<ConsultantAvailabilityException> exceptions = new ArrayList<>();
+
+    private final List<Object[]> bookings = new ArrayList<>();
+
+    private ConsultantCalendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        ConsultantAvailabilityRepository availabilityRepository = mock(ConsultantAvailabilityRepository.class);
+        ConsultantAvailabilityExceptionRepository exceptionRepository = mock(ConsultantAvailabilityExceptionRepository.class);
+        ConsultationRepository consultationRepository = mock(ConsultationRepository.class);
+        when(availabilityRepository.findWeeklyAvailability(CONSULTANT_ID)).thenReturn(weekly);
+        when(exceptionRepository.findExceptionsBetween(eq(CONSULTANT_ID), any(), any())).thenReturn(exceptions);
+        when(consultationRepository.findBookedIntervals(eq(CONSULTANT_ID), any(), any())).thenReturn(bookings);
+
+        calendar = new ConsultantCalendar(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(calendar, "availabilityRepository", availabilityRepository);
+        ReflectionTestUtils.setField(calendar, "exceptionRepository", exceptionRepository);
+        ReflectionTestUtils.setField(calendar, "consultationRepository", consultationRepository);
+    }
+
+    @Test
+    void slotEndingExactlyAtTheWindowEndIsOffered() {
+        window(DAY, "09:00", "12:00");
+
+        assertEquals(times("09:00", "10:00", "11:00"), slots(DAY));
+        assertTrue(calendar.isFree(CONSULTANT_ID, DAY.atTime(11, 0)));
+        assertFalse(calendar.isFree(CONSULTANT_ID, DAY.atTime(11, 30)));
+    }
+
+    @Test
+    void slotThatWouldRunPastTheWindowIsNotOffered() {
+        window(DAY, "09:00", "11:30");
+
+        assertEquals(times("09:00", "10:00"), slots(DAY));
+        assertTrue(calendar.isFree(CONSULTANT_ID, DAY.atTime(10, 30)));
+        assertFalse(calendar.isFree(CONSULTANT_ID, DAY.atTime(11, 0)));
+    }
+
+    @Test
+    void bookingThatSpansMidnightBlocksBothDays() {
+        window(DAY, "20:00", "23:00");
+        window(NEXT_DAY, "00:00", "03:00");
+        booking(DAY.atTime(22, 30), 120);
+
+        Map<LocalDate, List<LocalTime>> free = calendar.freeSlots(CONSULTANT_ID, DAY, NEXT_DAY);
+
+        assertEquals(times("20:00", "21:00"), free.get(DAY));
+        assertEquals(times("01:00", "02:00"), free.get(NEXT_DAY));
+        assertFalse(calendar.isFree(CONSULTANT_ID, NEXT_DAY.atTime(0, 0)));
+        assertTrue(calendar.isFree(CONSULTANT_ID, NEXT_DAY.atTime(0, 30)));
+    }
+
+    @Test
+    void bookingFromThePreviousDayIsSeenOnTheFirstDayOfTheRange() {
+        window(NEXT_DAY, "00:00", "03:00");
+        booking(DAY.atTime(23, 0), 90);
+
+        assertEquals(times("01:00", "02:00"), slots(NEXT_DAY));
+    }
+
+    @Test
+    void touchingBookingsBlockTheirSlotsButNotTheNeighbours() {
+        window(DAY, "08:00", "13:00");
+        booking(DAY.atTime(9, 0), 60);
+        booking(DAY.atTime(10, 0), 60);
+
+        assertEquals(times("08:00", "11:00", "12:00"), slots(DAY));
+    }
+
+    @Test
+    void exceptionTouchingABookingLeavesTheNextSlotFree() {
+        window(DAY, "08:00", "12:00");
+        exception(DAY, "09:00", "10:00");
+        booking(DAY.atTime(10, 0), 60);
+
+        assertEquals(times("08:00", "11:00"), slots(DAY));
+        assertTrue(calendar.isFree(CONSULTANT_ID, DAY.atTime(11, 0)));
+    }
+
+    @Test
+    void wholeDayExceptionRemovesEverySlot() {
+        window(DAY, "08:00", "12:00");
+        window(DAY, "13:00", "17:00");
+        window(NEXT_DAY, "08:00", "10:00");
+        exception(DAY, null, null);
+
+        Map<LocalDate, List<LocalTime>> free = calendar.freeSlots(CONSULTANT_ID, DAY, NEXT_DAY);
+
+        assertTrue(free.get(DAY).isEmpty());
+        assertFalse(calendar.isFree(CONSULTANT_ID, DAY.atTime(9, 0)));
+        assertEquals(times("08:00", "09:00"), free.get(NEXT_DAY));
+    }
+
+    @Test
+    void overlappingWindowsGiveEachSlotOnceInTimeOrder() {
+        window(DAY, "10:00", "13:00");
+        window(DAY, "09:00", "12:00");
+
+        assertEquals(times("09:00", "10:00", "11:00", "12:00"), slots(DAY));
+    }
+
+    @Test
+    void slotMustNotRunPastMidnight() {
+        window(DAY, "22:00", "23:59");
+
+        assertEquals(times("22:00"), slots(DAY));
+        assertFalse(calendar.isFree(CONSULTANT_ID, DAY.atTime(23, 30)));
+    }
+
+    private List<LocalTime> slots(LocalDate date) {
+        return calendar.freeSlots(CONSULTANT_ID, date, date).get(date);
+    }
+
+    private void window(LocalDate date, String start, String end) {
+        weekly.add(new ConsultantAvailability(null, date.getDayOfWeek().getValue() % 7,
+                LocalTime.parse(start), LocalTime.parse(end)));
+    }
+
+    private void exception(LocalDate date, String start, String end) {
+        ConsultantAvailabilityException exception = new ConsultantAvailabilityException(null, date, "unavailable");
+        exception.setStartTime(start != null ? LocalTime.parse(start) : null);
+        exception.setEndTime(end != null ? LocalTime.parse(end) : null);
+        exceptions.add(exception);
+    }
+
+    private void booking(LocalDateTime start, int durationMinutes) {
+        bookings.add(new Object[]{start, durationMinutes});
+    }
+
+    private static List<LocalTime> times(String... times) {
+        List<LocalTime> result = new ArrayList<>();
+        for (String time : times) {
+            result.add(LocalTime.parse(time));
+        }
+        return result;
+    }
+}